@@ -2,8 +2,10 @@ package com.ipa.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class IpaBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(IpaBackendApplication.class, args);
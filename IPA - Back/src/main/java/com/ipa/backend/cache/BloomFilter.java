@@ -0,0 +1,72 @@
+package com.ipa.backend.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter simples e thread-safe para strings. Sem falsos negativos;
+ * um resultado positivo deve ser confirmado numa estrutura exata.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * @param capacidade número esperado de elementos
+     * @param taxaFalsoPositivo taxa desejada de falsos positivos (ex.: 0.01)
+     */
+    public BloomFilter(int capacidade, double taxaFalsoPositivo) {
+        int m = (int) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.numBits = Math.max(64, m);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacidade * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    public void add(String valor) {
+        long h = hash64(valor);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, numBits);
+            int idx = bit >>> 6;
+            long mask = 1L << (bit & 63);
+            long atual;
+            do {
+                atual = bits.get(idx);
+                if ((atual & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(idx, atual, atual | mask));
+        }
+    }
+
+    public boolean mightContain(String valor) {
+        long h = hash64(valor);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a 64 bits seguido de um mix final (splitmix64)
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
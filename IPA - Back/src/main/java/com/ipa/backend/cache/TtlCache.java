@@ -0,0 +1,150 @@
+package com.ipa.backend.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória limitado por tamanho, com TTL por entrada e contadores de hit/miss/eviction.
+ * Thread-safe; pensado para caches pequenos de leitura intensa (tokens, usuários, rastreio).
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Entrada<V>(V valor, long expiraEm) {
+    }
+
+    public TtlCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retorna o valor em cache, ou null se ausente ou expirado.
+     */
+    public V get(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entrada.expiraEm() <= System.currentTimeMillis()) {
+            if (entradas.remove(chave, entrada)) {
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entrada.valor();
+    }
+
+    public void put(K chave, V valor, long ttlMs) {
+        if (ttlMs <= 0) {
+            return;
+        }
+
+        long agora = System.currentTimeMillis();
+
+        if (entradas.size() >= maxSize) {
+            liberarEspaco(agora);
+        }
+        entradas.put(chave, new Entrada<>(valor, agora + ttlMs));
+    }
+
+    public void invalidate(K chave) {
+        if (entradas.remove(chave) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove a chave agora e de novo ao fim da transação corrente (se houver),
+     * para que uma leitura concorrente não recoloque o valor antigo antes do commit.
+     */
+    public void invalidateAfterCommit(K chave) {
+        invalidate(chave);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(chave);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        evictions.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Publica hits, misses, evictions, tamanho e taxa de acerto com o prefixo informado.
+     */
+    public void registrarMetricas(MeterRegistry registry, String prefixo) {
+        FunctionCounter.builder(prefixo + ".hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder(prefixo + ".misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder(prefixo + ".evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder(prefixo + ".size", entradas, Map::size).register(registry);
+        Gauge.builder(prefixo + ".hit.ratio", this, TtlCache::getHitRatio).register(registry);
+    }
+
+    /**
+     * Remove entradas expiradas; se ainda estiver cheio, descarta entradas arbitrárias
+     * até voltar abaixo do limite.
+     */
+    private void liberarEspaco(long agora) {
+        entradas.entrySet().removeIf(e -> {
+            boolean expirada = e.getValue().expiraEm() <= agora;
+            if (expirada) {
+                evictions.incrementAndGet();
+            }
+            return expirada;
+        });
+
+        Iterator<K> it = entradas.keySet().iterator();
+        while (entradas.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
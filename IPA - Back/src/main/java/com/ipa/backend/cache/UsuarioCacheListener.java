@@ -0,0 +1,37 @@
+package com.ipa.backend.cache;
+
+import com.ipa.backend.model.Usuario;
+import com.ipa.backend.service.CadastroPorCpfService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida o id em cache do CPF (CadastroPorCpfService) quando uma linha de tb_usuarios
+ * é alterada ou removida; numa troca de CPF, também o do CPF anterior (cpfAnterior, guardado na leitura).
+ */
+@Component
+public class UsuarioCacheListener {
+
+    @Autowired
+    @Lazy
+    private CadastroPorCpfService cadastroPorCpfService;
+
+    @PostLoad
+    public void onLoad(Usuario usuario) {
+        usuario.setCpfAnterior(usuario.getCpf());
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Usuario usuario) {
+        cadastroPorCpfService.invalidarBeneficiario(usuario.getCpf());
+        if (usuario.getCpfAnterior() != null && !usuario.getCpfAnterior().equals(usuario.getCpf())) {
+            cadastroPorCpfService.invalidarBeneficiario(usuario.getCpfAnterior());
+        }
+        usuario.setCpfAnterior(usuario.getCpf());
+    }
+}
@@ -0,0 +1,52 @@
+package com.ipa.backend.cache;
+
+import com.ipa.backend.model.UsuarioIpa;
+import com.ipa.backend.service.CadastroPorCpfService;
+import com.ipa.backend.service.CustomUserDetailsService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida o cache de UserDetails e o id em cache do CPF (CadastroPorCpfService) sempre que
+ * uma linha de tb_usuarios_ipa é criada, alterada ou removida.
+ * Numa troca de CPF invalida também o anterior, guardado em cpfAnterior na leitura da linha.
+ * As linhas criadas pela SolicitacaoService entram por INSERT nativo e são invalidadas lá.
+ */
+@Component
+public class UsuarioIpaCacheListener {
+
+    @Autowired
+    @Lazy
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    @Lazy
+    private CadastroPorCpfService cadastroPorCpfService;
+
+    @PostLoad
+    public void onLoad(UsuarioIpa usuario) {
+        usuario.setCpfAnterior(usuario.getCpf());
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(UsuarioIpa usuario) {
+        // Um método por tipo de callback na mesma classe; invalidar um CPF ausente não tem efeito
+        invalidar(usuario.getCpf());
+        if (usuario.getCpfAnterior() != null && !usuario.getCpfAnterior().equals(usuario.getCpf())) {
+            invalidar(usuario.getCpfAnterior());
+        }
+        usuario.setCpfAnterior(usuario.getCpf());
+    }
+
+    private void invalidar(String cpf) {
+        userDetailsService.invalidar(cpf);
+        cadastroPorCpfService.invalidarSolicitante(cpf);
+    }
+}
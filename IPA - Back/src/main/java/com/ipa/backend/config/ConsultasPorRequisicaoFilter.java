@@ -0,0 +1,70 @@
+package com.ipa.backend.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Mede quantos comandos SQL cada endpoint executa (métrica http.server.requests.sql, por rota)
+ * e registra um aviso quando uma requisição passa do limite configurado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConsultasPorRequisicaoFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasPorRequisicaoFilter.class);
+    private static final LogSampler avisoSampler = new LogSampler(10, 1000);
+
+    @Autowired
+    private ContadorConsultasSql contador;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        contador.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int consultas = contador.finalizar();
+
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String rota = padrao != null ? padrao.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("http.server.requests.sql")
+                    .description("Comandos SQL por requisição")
+                    .tag("method", request.getMethod())
+                    .tag("uri", rota)
+                    .register(meterRegistry)
+                    .record(consultas);
+
+            if (consultas > contador.getLimite()) {
+                long suprimidos = avisoSampler.tentar();
+                if (suprimidos >= 0) {
+                    log.warn("{} {} executou {} comandos SQL (limite {}){}", request.getMethod(), rota,
+                            consultas, contador.getLimite(),
+                            suprimidos > 0 ? " (+" + suprimidos + " avisos suprimidos)" : "");
+                }
+            }
+        }
+    }
+}
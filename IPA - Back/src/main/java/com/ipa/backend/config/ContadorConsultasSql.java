@@ -0,0 +1,58 @@
+package com.ipa.backend.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Conta os comandos SQL emitidos pela thread da requisição (registrado como StatementInspector
+ * do Hibernate). Com o modo estrito ligado, passar do limite aborta a requisição: serve para que
+ * um N+1 novo apareça em desenvolvimento/CI em vez de só em produção.
+ */
+@Component
+public class ContadorConsultasSql implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> contagem = new ThreadLocal<>();
+
+    @Value("${sql.consultas.limite-por-requisicao:20}")
+    private int limite;
+
+    @Value("${sql.consultas.estrito:false}")
+    private boolean estrito;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] atual = contagem.get();
+        if (atual != null && ++atual[0] > limite && estrito) {
+            throw new IllegalStateException(
+                    "Limite de " + limite + " consultas SQL por requisição excedido: " + sql);
+        }
+        return sql;
+    }
+
+    public void iniciar() {
+        contagem.set(new int[1]);
+    }
+
+    /**
+     * Encerra a contagem da thread atual e retorna quantos comandos foram emitidos.
+     */
+    public int finalizar() {
+        int[] atual = contagem.get();
+        contagem.remove();
+        return atual != null ? atual[0] : 0;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+}
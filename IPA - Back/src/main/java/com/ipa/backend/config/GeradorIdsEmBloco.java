@@ -0,0 +1,25 @@
+package com.ipa.backend.config;
+
+import com.ipa.backend.model.IdEmBloco;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/**
+ * Gerador do Hibernate para @IdEmBloco: entrega o próximo id do bloco em memória de ReservaIds.
+ */
+public class GeradorIdsEmBloco implements IdentifierGenerator {
+
+    private final String sequencia;
+
+    public GeradorIdsEmBloco(IdEmBloco config, Member membro, CustomIdGeneratorCreationContext contexto) {
+        this.sequencia = config.value();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entidade) {
+        return ReservaIds.proximo(sequencia);
+    }
+}
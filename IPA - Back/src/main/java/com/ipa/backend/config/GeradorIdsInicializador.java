@@ -0,0 +1,34 @@
+package com.ipa.backend.config;
+
+import com.ipa.backend.model.GeradorIds;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alinha tb_id_sequencias com os ids já existentes antes de a aplicação aceitar requisições.
+ * Necessário na migração de IDENTITY (linhas antigas vieram do AUTO_INCREMENT) e inofensivo
+ * depois: o valor só avança (GREATEST), então pode rodar a cada subida e em várias instâncias.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class GeradorIdsInicializador {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alinharSequencias() {
+        for (String tabela : GeradorIds.TABELAS) {
+            // pooled-lo: o valor gravado é o primeiro id do próximo bloco
+            jdbcTemplate.update("INSERT INTO " + GeradorIds.TABELA
+                    + " (" + GeradorIds.COLUNA_NOME + ", " + GeradorIds.COLUNA_VALOR + ") "
+                    + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + tabela + " "
+                    + "ON DUPLICATE KEY UPDATE " + GeradorIds.COLUNA_VALOR
+                    + " = GREATEST(" + GeradorIds.COLUNA_VALOR + ", VALUES(" + GeradorIds.COLUNA_VALOR + "))",
+                    tabela);
+        }
+    }
+}
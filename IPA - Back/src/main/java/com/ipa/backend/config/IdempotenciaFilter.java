@@ -0,0 +1,213 @@
+package com.ipa.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipa.backend.exception.ChaveIdempotenciaException;
+import com.ipa.backend.service.IdempotenciaService;
+import com.ipa.backend.service.IdempotenciaService.RespostaGuardada;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Idempotency-Key nos POST de criação (idempotencia.caminhos): a primeira resposta é guardada
+ * e as repetições recebem os mesmos bytes (status, Content-Type e corpo) sem chegar ao controller.
+ *
+ * Roda depois do Spring Security, então a chave vale por usuário. A mesma chave com outro corpo
+ * recebe 422; uma repetição que chega enquanto a primeira roda espera por ela. Respostas 5xx
+ * não são guardadas: a chave é liberada e a próxima repetição executa de novo.
+ */
+@Component
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotency-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    @Value("${idempotencia.caminhos:/api/pedidos,/api/solicitacoes}")
+    private Set<String> caminhos;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        if (caminho.length() > 1 && caminho.endsWith("/")) {
+            caminho = caminho.substring(0, caminho.length() - 1);
+        }
+        return !caminhos.contains(caminho);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String chaveCliente = request.getHeader(HEADER);
+        if (chaveCliente.isBlank() || chaveCliente.length() > TAMANHO_MAXIMO_CHAVE) {
+            erro(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+
+        byte[] corpo = request.getInputStream().readAllBytes();
+        String chave = sha256(String.join("\n", request.getMethod(), request.getRequestURI(), usuario(),
+                chaveCliente).getBytes(StandardCharsets.UTF_8));
+
+        RespostaGuardada guardada;
+        try {
+            guardada = idempotenciaService.iniciar(chave, sha256(corpo));
+        } catch (ChaveIdempotenciaException e) {
+            erro(response, e.getStatus(), e.getMessage());
+            return;
+        }
+        if (guardada != null) {
+            repetir(response, guardada);
+            return;
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        boolean concluida = false;
+        try {
+            filterChain.doFilter(new CorpoLido(request, corpo), resposta);
+            if (resposta.getStatus() < 500) {
+                idempotenciaService.concluir(chave, new RespostaGuardada(sha256(corpo), resposta.getStatus(),
+                        resposta.getContentType(), resposta.getContentAsByteArray()));
+                concluida = true;
+            }
+        } finally {
+            if (!concluida) {
+                idempotenciaService.abandonar(chave);
+            }
+            resposta.copyBodyToResponse();
+        }
+    }
+
+    // ===== AUXILIARES =====
+
+    private void repetir(HttpServletResponse response, RespostaGuardada guardada) throws IOException {
+        response.setStatus(guardada.status());
+        if (guardada.contentType() != null) {
+            response.setContentType(guardada.contentType());
+        }
+        response.setHeader(HEADER_REPETIDA, "true");
+        byte[] corpo = guardada.corpo() != null ? guardada.corpo() : new byte[0];
+        response.setContentLength(corpo.length);
+        response.getOutputStream().write(corpo);
+    }
+
+    private void erro(HttpServletResponse response, int status, String mensagem) throws IOException {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", mensagem);
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static String usuario() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao != null && autenticacao.isAuthenticated() ? autenticacao.getName() : "";
+    }
+
+    private static String sha256(byte[] dados) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(dados));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Requisição com o corpo já lido (para o hash) entregue de novo ao controller.
+     */
+    private static class CorpoLido extends HttpServletRequestWrapper {
+
+        private final byte[] corpo;
+
+        CorpoLido(HttpServletRequest request, byte[] corpo) {
+            super(request);
+            this.corpo = corpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return corpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return corpo.length;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.ipa.backend.config;
 
+import com.ipa.backend.service.TokenRevocationService;
+import com.ipa.backend.service.TokenVersionService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,16 +21,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    // Tokens inválidos podem chegar em rajadas: no máximo 10 avisos por segundo
+    private static final LogSampler tokenInvalidoSampler = new LogSampler(10, 1000);
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtTokenCache tokenCache;
+
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Modo sem estado: autentica pelas claims do token, sem consultar o usuário no banco
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessEnabled;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -33,26 +59,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         
-        String cpf = null;
-        String jwt = null;
+        JwtPrincipal principal = null;
 
         // Verificar se o header Authorization existe e começa com "Bearer "
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7); // Remove "Bearer " do início
+            String jwt = authHeader.substring(7); // Remove "Bearer " do início
             try {
-                cpf = jwtUtil.extractCpf(jwt);
+                // Tokens já verificados são servidos do cache; os demais são verificados uma única vez
+                principal = tokenCache.get(jwt);
+                if (principal == null) {
+                    principal = jwtUtil.verify(jwt);
+                    tokenCache.put(jwt, principal);
+                }
+
+                // Revogação (logout) checada só em memória
+                if (tokenRevocationService.isRevogado(principal)) {
+                    log.debug("Token revogado: {}", principal.tokenId());
+                    principal = null;
+                }
             } catch (Exception e) {
-                logger.error("Erro ao extrair CPF do token: " + e.getMessage());
+                long suprimidos = tokenInvalidoSampler.tentar();
+                if (suprimidos >= 0) {
+                    log.warn("Token inválido: {} (+{} suprimidos)", e.getMessage(), suprimidos);
+                }
             }
         }
 
-        // Se encontrou CPF e não há autenticação no contexto
-        if (cpf != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(cpf);
+        // Se o token é válido e não há autenticação no contexto
+        if (principal != null && principal.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // Validar token
-            if (jwtUtil.validateToken(jwt, cpf)) {
+            String cpf = principal.subject();
+            UserDetails userDetails = carregarUsuario(principal);
+
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -67,10 +107,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Definir autenticação no contexto
                 SecurityContextHolder.getContext().setAuthentication(authToken);
                 
-                logger.info("✅ Usuário autenticado: " + cpf);
+                log.debug("Usuário autenticado: {}", principal.userId() != null ? principal.userId() : cpf);
+            } else {
+                log.debug("Token revogado para o usuário {}", principal.userId());
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tokens com claims têm a versão checada em memória (logout-all); no modo sem estado o usuário
+     * é montado a partir das claims, caso contrário, ou para tokens antigos sem claims, carrega do banco.
+     * Retorna null se o token foi revogado.
+     */
+    private UserDetails carregarUsuario(JwtPrincipal principal) {
+        if (principal.hasUserClaims()
+                && !tokenVersionService.isValida(principal.userId(), principal.tokenVersion())) {
+            return null;
+        }
+        if (statelessEnabled && principal.hasUserClaims()) {
+            List<SimpleGrantedAuthority> authorities = principal.authorities().stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .toList();
+            return new User(principal.subject(), "", authorities);
+        }
+        return this.userDetailsService.loadUserByUsername(principal.subject());
+    }
+}
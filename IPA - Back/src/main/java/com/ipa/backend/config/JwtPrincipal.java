@@ -0,0 +1,26 @@
+package com.ipa.backend.config;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Resultado imutável de um token JWT já verificado (assinatura + expiração).
+ * tokenId é o jti usado na revogação; userId, authorities e tokenVersion só existem em tokens emitidos com as claims do usuário.
+ */
+public record JwtPrincipal(
+        String subject,
+        Date expiration,
+        Date issuedAt,
+        String tokenId,
+        Long userId,
+        List<String> authorities,
+        Integer tokenVersion) {
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    public boolean hasUserClaims() {
+        return userId != null && tokenVersion != null;
+    }
+}
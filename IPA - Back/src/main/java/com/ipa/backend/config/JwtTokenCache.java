@@ -0,0 +1,97 @@
+package com.ipa.backend.config;
+
+import com.ipa.backend.cache.TtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Cache limitado de tokens já verificados, indexado pelo hash SHA-256 do token.
+ * Uma entrada nunca vive além do TTL configurado nem da expiração (exp) do próprio token.
+ */
+@Component
+public class JwtTokenCache {
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${jwt.cache.ttl-ms:300000}") // 5 minutos
+    private long ttlMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TtlCache<String, JwtPrincipal> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new TtlCache<>(maxSize);
+        cache.registrarMetricas(meterRegistry, "jwt.cache");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retorna o principal já verificado para o token, ou null se não estiver em cache.
+     */
+    public JwtPrincipal get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.get(hash(token));
+    }
+
+    public void put(String token, JwtPrincipal principal) {
+        if (!enabled) {
+            return;
+        }
+
+        long ttl = ttlMs;
+        if (principal.expiration() != null) {
+            ttl = Math.min(ttl, principal.expiration().getTime() - System.currentTimeMillis());
+        }
+        cache.put(hash(token), principal, ttl);
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.ipa.backend.config;
 
+import com.ipa.backend.model.UsuarioIpa;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -19,25 +24,54 @@ public class JwtUtil {
     @Value("${jwt.secret:sua-chave-secreta-muito-segura-com-pelo-menos-256-bits}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}") // 24 horas em milissegundos
+    @Value("${jwt.expiration:900000}") // 15 minutos em milissegundos (renovado via /api/auth/refresh)
     private Long expiration;
 
+    // Chave e parser são imutáveis e thread-safe: criados uma única vez na inicialização
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_AUTHORITIES = "auth";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     // Gerar token
     public String generateToken(String cpf) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, cpf);
     }
 
+    /**
+     * Gera token com id, authorities e versão do usuário assinados nas claims,
+     * permitindo autenticar sem consultar o banco (modo sem estado).
+     */
+    public String generateToken(UsuarioIpa usuario) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, usuario.getId());
+        claims.put(CLAIM_AUTHORITIES, List.of()); // Authorities vazias
+        claims.put(CLAIM_TOKEN_VERSION, usuario.getTokenVersion() != null ? usuario.getTokenVersion() : 0);
+        return createToken(claims, usuario.getCpf());
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // jti, usado na revogação (logout)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
@@ -45,6 +79,27 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verifica assinatura e expiração em uma única passada.
+     * Lança JwtException se o token for inválido ou estiver expirado.
+     */
+    public JwtPrincipal verify(String token) {
+        Claims claims = extractAllClaims(token);
+
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        List<?> authorities = claims.get(CLAIM_AUTHORITIES, List.class);
+
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.getExpiration(),
+                claims.getIssuedAt(),
+                claims.getId(),
+                userId != null ? userId.longValue() : null,
+                authorities != null ? authorities.stream().map(String::valueOf).toList() : List.of(),
+                tokenVersion != null ? tokenVersion.intValue() : null);
+    }
+
     // Extrair CPF do token
     public String extractCpf(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -61,29 +116,19 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    // Verificar se o token expirou
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // Validar token
     public Boolean validateToken(String token, String cpf) {
-        final String tokenCpf = extractCpf(token);
-        return (tokenCpf.equals(cpf) && !isTokenExpired(token));
+        final JwtPrincipal principal = verify(token);
+        return (principal.subject().equals(cpf) && !principal.isExpired());
     }
 
     // Validar token sem CPF
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !verify(token).isExpired();
         } catch (Exception e) {
             return false;
         }
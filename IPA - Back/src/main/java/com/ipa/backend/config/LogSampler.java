@@ -0,0 +1,40 @@
+package com.ipa.backend.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limita eventos de log de caminho quente a no máximo N por janela de tempo.
+ * Eventos acima do limite são apenas contados e reportados no próximo evento liberado.
+ */
+public class LogSampler {
+
+    private final int maxPorJanela;
+    private final long janelaMs;
+
+    private final AtomicLong inicioJanela = new AtomicLong();
+    private final AtomicLong contagem = new AtomicLong();
+    private final AtomicLong suprimidos = new AtomicLong();
+
+    public LogSampler(int maxPorJanela, long janelaMs) {
+        this.maxPorJanela = maxPorJanela;
+        this.janelaMs = janelaMs;
+    }
+
+    /**
+     * Retorna -1 se o evento deve ser descartado; caso contrário, quantos eventos
+     * foram suprimidos desde o último liberado.
+     */
+    public long tentar() {
+        long agora = System.currentTimeMillis();
+        long inicio = inicioJanela.get();
+        if (agora - inicio >= janelaMs && inicioJanela.compareAndSet(inicio, agora)) {
+            contagem.set(0);
+        }
+
+        if (contagem.incrementAndGet() > maxPorJanela) {
+            suprimidos.incrementAndGet();
+            return -1;
+        }
+        return suprimidos.getAndSet(0);
+    }
+}
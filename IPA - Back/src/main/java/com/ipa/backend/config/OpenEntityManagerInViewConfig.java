@@ -0,0 +1,28 @@
+package com.ipa.backend.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view (spring.jpa.open-in-view=false desliga o do Spring Boot) sem os endpoints de
+ * autenticação. Com o EntityManager aberto até o fim da requisição, a conexão usada pelo findByCpf
+ * do login ficava presa enquanto a senha esperava na fila do BCrypt: numa tempestade de logins o
+ * pool se esgotava e até o 503 da fila cheia só saía depois do timeout do Hikari.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/api/auth/**");
+    }
+}
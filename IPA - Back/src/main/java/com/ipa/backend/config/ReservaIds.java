@@ -0,0 +1,118 @@
+package com.ipa.backend.config;
+
+import com.ipa.backend.model.GeradorIds;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reserva os blocos de ids de tb_id_sequencias (pooled-lo: o valor gravado é o primeiro id do
+ * próximo bloco) e os entrega em memória; reservar também atende outros contadores em bloco.
+ *
+ * A reserva usa um pool próprio, pequeno, e não o das requisições: quem pede um id já segura uma
+ * conexão do pool principal, e com o @TableGenerator do Hibernate (que abre outra conexão dele) as
+ * criações simultâneas esgotavam o pool esperando umas pelas outras até o timeout do Hikari.
+ */
+@Component
+public class ReservaIds {
+
+    private static volatile ReservaIds instancia;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${ids.pool.tamanho:2}")
+    private int tamanhoPool;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transacao;
+
+    private final Map<String, Bloco> blocos = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("ids");
+        dataSource.setMaximumPoolSize(tamanhoPool);
+        dataSource.setMinimumIdle(1);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        instancia = this;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        instancia = null;
+        dataSource.close();
+    }
+
+    static long proximo(String sequencia) {
+        ReservaIds reserva = instancia;
+        if (reserva == null) {
+            throw new IllegalStateException("Gerador de ids ainda não inicializado");
+        }
+        return reserva.blocos.computeIfAbsent(sequencia, nome -> reserva.new Bloco(nome)).proximo();
+    }
+
+    /**
+     * Avança em tamanho o contador nome de uma tabela de sequências e devolve o valor anterior
+     * (se a linha não existe, ela nasce em inicial). Transação curta no pool próprio; o FOR UPDATE
+     * serializa a reserva entre instâncias.
+     */
+    public long reservar(String tabela, String colunaNome, String colunaValor, String nome, long inicial, int tamanho) {
+        try {
+            return transacao.execute(status -> avancar(tabela, colunaNome, colunaValor, nome, inicial, tamanho));
+        } catch (DuplicateKeyException e) {
+            // Outra instância criou a linha ao mesmo tempo: tenta de novo
+            return transacao.execute(status -> avancar(tabela, colunaNome, colunaValor, nome, inicial, tamanho));
+        }
+    }
+
+    private long avancar(String tabela, String colunaNome, String colunaValor, String nome, long inicial, int tamanho) {
+        List<Long> valor = jdbcTemplate.queryForList("SELECT " + colunaValor + " FROM " + tabela
+                + " WHERE " + colunaNome + " = ? FOR UPDATE", Long.class, nome);
+        if (valor.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + tabela + " (" + colunaNome + ", " + colunaValor + ") VALUES (?, ?)",
+                    nome, inicial + tamanho);
+            return inicial;
+        }
+        long inicio = valor.get(0);
+        jdbcTemplate.update("UPDATE " + tabela + " SET " + colunaValor + " = ? WHERE " + colunaNome + " = ?",
+                inicio + tamanho, nome);
+        return inicio;
+    }
+
+    /** Bloco corrente de uma sequência: [proximo, limite). */
+    private final class Bloco {
+
+        private final String sequencia;
+        private long proximo;
+        private long limite;
+
+        Bloco(String sequencia) {
+            this.sequencia = sequencia;
+        }
+
+        synchronized long proximo() {
+            if (proximo >= limite) {
+                proximo = reservar(GeradorIds.TABELA, GeradorIds.COLUNA_NOME, GeradorIds.COLUNA_VALOR,
+                        sequencia, 1L, GeradorIds.BLOCO);
+                limite = proximo + GeradorIds.BLOCO;
+            }
+            return proximo++;
+        }
+    }
+}
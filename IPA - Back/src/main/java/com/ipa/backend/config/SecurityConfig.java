@@ -1,6 +1,8 @@
 package com.ipa.backend.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,6 +33,8 @@ public class SecurityConfig {
                     config.addAllowedOriginPattern("http://localhost:3000");
                     config.addAllowedMethod("*");
                     config.addAllowedHeader("*");
+                    config.addExposedHeader("X-Next-Cursor"); // Paginação por cursor
+                    config.addExposedHeader("Idempotency-Replayed"); // Resposta repetida (IdempotenciaFilter)
                     config.setAllowCredentials(true);
                     config.setMaxAge(3600L);
                     return config;
@@ -41,6 +45,8 @@ public class SecurityConfig {
                 
                 // ✅ Configurar autorização de endpoints
                 .authorizeHttpRequests(auth -> auth
+                        // Dispatch assíncrono (SSE, streaming) já foi autorizado na requisição original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/**",           // Libera TODOS os endpoints de autenticação
                                 "/api/health",            // Health check
@@ -63,8 +69,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Custo do BCrypt; ao mudar, as senhas são refeitas de forma transparente no próximo login
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 }
\ No newline at end of file
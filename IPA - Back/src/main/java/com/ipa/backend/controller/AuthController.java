@@ -1,12 +1,26 @@
 package com.ipa.backend.controller;
 
+import com.ipa.backend.config.JwtPrincipal;
+import com.ipa.backend.config.JwtTokenCache;
 import com.ipa.backend.config.JwtUtil;
 import com.ipa.backend.dto.LoginDTO;
 import com.ipa.backend.dto.LoginResponseDTO;
+import com.ipa.backend.dto.RefreshTokenDTO;
 import com.ipa.backend.dto.UsuarioIpaDTO;
+import com.ipa.backend.exception.MuitasTentativasException;
+import com.ipa.backend.exception.ServicoSobrecarregadoException;
 import com.ipa.backend.model.UsuarioIpa;
 import com.ipa.backend.service.AuthService;
+import com.ipa.backend.service.LoginThrottleService;
+import com.ipa.backend.service.RefreshTokenService;
+import com.ipa.backend.service.TokenRevocationService;
+import com.ipa.backend.service.TokenVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,58 +28,169 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private AuthService authService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private JwtTokenCache tokenCache;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody UsuarioIpaDTO usuarioDTO) {
-        System.out.println("📝 Tentativa de registro - CPF: " + usuarioDTO.getCpf());
-        
         try {
             UsuarioIpa usuario = authService.registrarUsuario(usuarioDTO);
-            System.out.println("✅ Usuário registrado: " + usuario.getNome());
+            log.info("Usuário {} registrado", usuario.getId());
             return ResponseEntity.ok().body(new Response("Usuário cadastrado com sucesso!", usuario));
+        } catch (ServicoSobrecarregadoException e) {
+            return sobrecarregado(e);
         } catch (Exception e) {
-            System.out.println("❌ Erro no registro: " + e.getMessage());
+            log.debug("Registro recusado: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new Response(e.getMessage(), null));
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginDTO loginDTO) {
-        System.out.println("🔐 Tentativa de login - CPF: " + loginDTO.getCpf());
+    public ResponseEntity<?> login(@RequestBody LoginDTO loginDTO, HttpServletRequest request) {
+        String ip = request.getRemoteAddr();
+        try {
+            // Bloqueio antes de qualquer consulta ao banco ou BCrypt
+            loginThrottleService.verificar(loginDTO.getCpf(), ip);
+        } catch (MuitasTentativasException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new Response(e.getMessage(), null));
+        }
         
         try {
             UsuarioIpa usuario = authService.autenticarUsuario(loginDTO.getCpf(), loginDTO.getSenha());
             
-            System.out.println("✅ Usuário autenticado: " + usuario.getNome());
+            loginThrottleService.registrarSucesso(loginDTO.getCpf(), ip);
             
             // 🔑 Gerar token JWT
-            String token = jwtUtil.generateToken(usuario.getCpf());
-            System.out.println("🎫 Token gerado: " + token.substring(0, 20) + "...");
+            String token = jwtUtil.generateToken(usuario);
+            String refreshToken = refreshTokenService.emitir(usuario);
             
             LoginResponseDTO response = new LoginResponseDTO(
                 token,
                 usuario,
-                "Login realizado com sucesso"
+                "Login realizado com sucesso",
+                refreshToken
             );
             
             return ResponseEntity.ok(response);
+        } catch (ServicoSobrecarregadoException e) {
+            return sobrecarregado(e);
         } catch (Exception e) {
-            System.out.println("❌ Erro na autenticação: " + e.getMessage());
-            e.printStackTrace();
+            loginThrottleService.registrarFalha(loginDTO.getCpf(), ip);
+            log.debug("Login recusado: {}", e.getMessage());
             return ResponseEntity.status(401).body(new Response(e.getMessage(), null));
         }
     }
 
+    /**
+     * Troca um refresh token válido por um novo access token e um novo refresh token (rotação)
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenDTO refreshTokenDTO) {
+        try {
+            RefreshTokenService.Rotacao rotacao = refreshTokenService.rotacionar(refreshTokenDTO.getRefreshToken());
+            String token = jwtUtil.generateToken(rotacao.usuario());
+
+            return ResponseEntity.ok(new LoginResponseDTO(
+                token,
+                rotacao.usuario(),
+                "Token renovado com sucesso",
+                rotacao.refreshToken()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new Response(e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Revoga o access token atual e o refresh token informado
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+            @RequestBody(required = false) RefreshTokenDTO refreshTokenDTO) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String jwt = authHeader.substring(7);
+            try {
+                JwtPrincipal principal = jwtUtil.verify(jwt);
+                tokenRevocationService.revogar(principal);
+                tokenCache.invalidate(jwt);
+            } catch (Exception e) {
+                // Token inválido ou expirado: nada a revogar
+            }
+        }
+
+        if (refreshTokenDTO != null && refreshTokenDTO.getRefreshToken() != null) {
+            refreshTokenService.revogar(refreshTokenDTO.getRefreshToken());
+        }
+
+        return ResponseEntity.ok().body(new Response("Logout realizado com sucesso", null));
+    }
+
+    /**
+     * Encerra todas as sessões do usuário: revoga o access token atual, invalida a versão dos demais
+     * access tokens e revoga todos os refresh tokens ativos
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new Response("Token não informado", null));
+        }
+
+        String jwt = authHeader.substring(7);
+        try {
+            JwtPrincipal principal = jwtUtil.verify(jwt);
+            // Tokens antigos não trazem o id do usuário nas claims
+            Long usuarioId = principal.userId() != null
+                    ? principal.userId()
+                    : authService.buscarPorCpf(principal.subject()).getId();
+
+            tokenRevocationService.revogar(principal);
+            tokenCache.invalidate(jwt);
+            tokenVersionService.revogarTokens(usuarioId);
+            refreshTokenService.revogarTodos(usuarioId);
+
+            log.info("Todas as sessões do usuário {} encerradas", usuarioId);
+            return ResponseEntity.ok().body(new Response("Todas as sessões foram encerradas", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new Response("Token inválido", null));
+        }
+    }
+
     @GetMapping("/test")
     public ResponseEntity<?> test() {
         return ResponseEntity.ok().body(new Response("API Auth funcionando!", null));
     }
 
+    // 503 imediato quando o pool de BCrypt está saturado
+    private ResponseEntity<?> sobrecarregado(ServicoSobrecarregadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new Response(e.getMessage(), null));
+    }
+
     // Classe auxiliar para respostas
     static class Response {
         private String message;
@@ -0,0 +1,61 @@
+package com.ipa.backend.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Modo streaming das listagens grandes: um objeto JSON por linha (NDJSON),
+ * escrito à medida que as linhas saem do cursor do banco.
+ *
+ * Os cursores vêm dos métodos stream* dos repositórios, que só podem ser consumidos dentro de
+ * uma transação. Eles usam fetch size Integer.MIN_VALUE, para que o driver MySQL entregue linha
+ * a linha em vez de carregar o resultado inteiro, e, quando devolvem entidades, são somente-leitura.
+ */
+final class NdjsonStream {
+
+    // Descarrega a saída a cada N itens, para o cliente começar a receber antes do fim
+    private static final int FLUSH_A_CADA = 500;
+
+    private NdjsonStream() {
+    }
+
+    /**
+     * Streaming pedido por Accept: application/x-ndjson ou ?stream=true.
+     */
+    static boolean solicitado(String accept, boolean stream) {
+        return stream || (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE));
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> responder(ObjectMapper objectMapper, Consumer<Consumer<T>> percorrer) {
+        StreamingResponseBody corpo = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                // Sem o separador padrão (espaço) entre valores raiz; a quebra de linha é escrita abaixo
+                json.setRootValueSeparator(null);
+                int[] escritos = {0};
+                percorrer.accept(item -> {
+                    try {
+                        json.writeObject(item);
+                        json.writeRaw('\n');
+                        if (++escritos[0] % FLUSH_A_CADA == 0) {
+                            json.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+}
@@ -1,15 +1,28 @@
 package com.ipa.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipa.backend.dto.Pagina;
 import com.ipa.backend.dto.PedidoDTO;
+import com.ipa.backend.dto.RastreamentoLoteDTO;
+import com.ipa.backend.exception.ServicoSobrecarregadoException;
+import com.ipa.backend.service.HistoricoStatusService;
 import com.ipa.backend.service.PedidoService;
+import com.ipa.backend.service.RastreamentoEventosService;
+import com.ipa.backend.service.RastreamentoService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +35,32 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private RastreamentoService rastreamentoService;
+
+    @Autowired
+    private RastreamentoEventosService rastreamentoEventosService;
+
+    @Autowired
+    private HistoricoStatusService historicoStatusService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Paginado por cursor: ?cursor=<X-Next-Cursor da página anterior>&limite=50
+     */
     @GetMapping
-    public ResponseEntity<Page<PedidoDTO>> listarTodos(Pageable pageable) {
-        return ResponseEntity.ok(pedidoService.listarTodos(pageable));
+    public ResponseEntity<?> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            return responderPagina(pedidoService.listarTodos(cursor, limite));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
     }
 
     @GetMapping("/{id}")
@@ -44,62 +80,123 @@ public class PedidoController {
      * Exemplo: /api/pedidos/rastrear/SAFRA-2025-K7L8M9N0
      */
     @GetMapping("/rastrear/{codigo}")
-    public ResponseEntity<?> rastrear(@PathVariable String codigo) {
+    public ResponseEntity<?> rastrear(@PathVariable String codigo, WebRequest request) {
+        // Visão já montada e cacheada por código; If-None-Match é comparado sem tocar no banco
+        return rastreamentoService.rastrearPedido(codigo)
+                .<ResponseEntity<?>>map(visao -> responderVisao(visao, request))
+                .orElseGet(() -> {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("message", "Pedido não encontrado com o código: " + codigo);
+                    error.put("codigo", codigo);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                });
+    }
+
+    /**
+     * 📡 ACOMPANHAMENTO EM TEMPO REAL (Server-Sent Events)
+     * GET /api/pedidos/rastrear/{codigo}/eventos
+     * Envia o estado atual e um evento "status" a cada mudança; "removido" encerra o fluxo
+     */
+    @GetMapping(value = "/rastrear/{codigo}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanhar(@PathVariable String codigo, HttpServletRequest request) {
+        // SseEmitter precisa ser o tipo de retorno declarado; erros saem como ResponseStatusException
+        RastreamentoService.VisaoRastreamento visao = rastreamentoService.rastrearPedido(codigo)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Pedido não encontrado com o código: " + codigo));
+
         try {
-            PedidoDTO pedido = pedidoService.rastrearPorCodigo(codigo);
+            return rastreamentoEventosService.assinarPedido(codigo, visao, request.getRemoteAddr());
+        } catch (ServicoSobrecarregadoException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
 
-            // Criar resposta detalhada para o frontend
-            Map<String, Object> response = new HashMap<>();
-            
-            // ✅ Informações básicas do pedido
-            response.put("id", pedido.getId());
-            response.put("numeroRastreio", pedido.getNumeroRastreio());
-            response.put("status", pedido.getStatus());
-            
-            // ✅ Datas formatadas
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            response.put("dataSolicitacao", pedido.getDataPedido().format(formatter));
-            
-            if (pedido.getDataEntrega() != null) {
-                response.put("dataEntrega", pedido.getDataEntrega().format(formatter));
-            }
-            
-            // ✅ Informações do produto
-            response.put("produto", pedido.getProdutoNome());
-            response.put("quantidade", pedido.getQuantidade());
-            response.put("valorTotal", pedido.getValorTotal());
-            
-            // ✅ Informações do solicitante
-            response.put("solicitante", pedido.getUsuarioNome());
-            
-            // ✅ Etapas de rastreamento com base no status
-            response.put("etapas", gerarEtapasRastreamento(pedido.getStatus()));
-            
-            // ✅ Observações
-            if (pedido.getObservacoes() != null) {
-                response.put("observacoes", pedido.getObservacoes());
-            }
+    /**
+     * 🔍 RASTREAMENTO EM LOTE
+     * POST /api/pedidos/rastrear/lote
+     * Body: { "codigos": ["SAFRA-2025-K7L8M9N0", ...] }
+     * Resposta: array JSON com um item por código (encontrado ou não), escrito em streaming
+     */
+    @PostMapping("/rastrear/lote")
+    public ResponseEntity<?> rastrearLote(@RequestBody RastreamentoLoteDTO lote) {
+        try {
+            rastreamentoService.validarLote(lote.getCodigos());
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
 
-            return ResponseEntity.ok(response);
-            
+        StreamingResponseBody corpo = RastreamentoLoteStream.escrever(objectMapper,
+                consumidor -> rastreamentoService.rastrearPedidos(lote.getCodigos(), consumidor),
+                "Pedido não encontrado com o código: ");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+
+    /**
+     * Linha do tempo de mudanças de status
+     * GET /api/pedidos/{id}/historico
+     */
+    @GetMapping("/{id}/historico")
+    public ResponseEntity<?> historico(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(pedidoService.buscarHistorico(id));
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Pedido não encontrado com o código: " + codigo);
-            error.put("codigo", codigo);
+            error.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
     }
 
+    /**
+     * Percentis de tempo por etapa (status) nas transições do período
+     * GET /api/pedidos/historico/lead-time?de=2025-01-01&ate=2025-03-31 (padrão: últimos 30 dias)
+     */
+    @GetMapping("/historico/lead-time")
+    public ResponseEntity<?> leadTime(
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        LocalDate fim = ate != null ? ate : LocalDate.now();
+        LocalDate inicio = de != null ? de : fim.minusDays(30);
+        try {
+            return ResponseEntity.ok(historicoStatusService.leadTime(HistoricoStatusService.PEDIDO, inicio, fim));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<PedidoDTO>> listarPorStatus(@PathVariable String status) {
-        return ResponseEntity.ok(pedidoService.listarPorStatus(status));
+    public ResponseEntity<?> listarPorStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            return responderPagina(pedidoService.listarPorStatus(status, cursor, limite));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<PedidoDTO>> listarPorUsuario(@PathVariable Long usuarioId) {
-        return ResponseEntity.ok(pedidoService.listarPorUsuario(usuarioId));
+    public ResponseEntity<?> listarPorUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            return responderPagina(pedidoService.listarPorUsuario(usuarioId, cursor, limite));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
     }
 
+    // Com Idempotency-Key, repetições devolvem a primeira resposta (IdempotenciaFilter)
     @PostMapping
     public ResponseEntity<?> criar(@RequestBody PedidoDTO pedidoDTO) {
         try {
@@ -145,40 +242,30 @@ public class PedidoController {
     }
 
     /**
-     * Gera as etapas de rastreamento com base no status atual
+     * 200 com ETag, ou 304 sem corpo quando o cliente já tem a versão atual.
+     * no-cache faz o navegador guardar a resposta e revalidar a cada consulta.
+     */
+    private ResponseEntity<?> responderVisao(RastreamentoService.VisaoRastreamento visao, WebRequest request) {
+        if (request.checkNotModified(visao.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(visao.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(visao.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(visao.dados());
+    }
+
+    /**
+     * Corpo continua sendo a lista de itens; o token da próxima página vai no header X-Next-Cursor.
      */
-    private List<Map<String, Object>> gerarEtapasRastreamento(String status) {
-        return List.of(
-            Map.of(
-                "etapa", "Solicitação Recebida",
-                "descricao", "Pedido registrado no sistema",
-                "concluida", true,
-                "icone", "📝"
-            ),
-            Map.of(
-                "etapa", "Análise e Aprovação",
-                "descricao", "Verificação de estoque e documentação",
-                "concluida", status.equals("APROVADO") || status.equals("EM_ROTA") || status.equals("ENTREGUE"),
-                "icone", "✅"
-            ),
-            Map.of(
-                "etapa", "Preparação do Insumo",
-                "descricao", "Separação e embalagem",
-                "concluida", status.equals("EM_ROTA") || status.equals("ENTREGUE"),
-                "icone", "📦"
-            ),
-            Map.of(
-                "etapa", "Em Rota de Entrega",
-                "descricao", "Produto a caminho do destino",
-                "concluida", status.equals("EM_ROTA") || status.equals("ENTREGUE"),
-                "icone", "🚚"
-            ),
-            Map.of(
-                "etapa", "Entregue",
-                "descricao", "Produto recebido pelo agricultor",
-                "concluida", status.equals("ENTREGUE"),
-                "icone", "🎉"
-            )
-        );
+    private ResponseEntity<List<PedidoDTO>> responderPagina(Pagina<PedidoDTO> pagina) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (pagina.proximoCursor() != null) {
+            resposta.header(Pagina.HEADER_PROXIMO_CURSOR, pagina.proximoCursor());
+        }
+        return resposta.body(pagina.itens());
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,20 @@
 package com.ipa.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ipa.backend.model.Produto;
 import com.ipa.backend.service.ProdutoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/produtos")
@@ -17,13 +23,22 @@ public class ProdutoController {
     @Autowired
     private ProdutoService produtoService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public ResponseEntity<Page<Produto>> listarTodos(Pageable pageable) {
         return ResponseEntity.ok(produtoService.listarTodos(pageable));
     }
 
+    // NDJSON em streaming com Accept: application/x-ndjson ou ?stream=true
     @GetMapping("/todos")
-    public ResponseEntity<List<Produto>> listarTodosSemPaginacao() {
+    public ResponseEntity<?> listarTodosSemPaginacao(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        if (NdjsonStream.solicitado(accept, stream)) {
+            return NdjsonStream.<Produto>responder(objectMapper, produtoService::percorrerTodos);
+        }
         return ResponseEntity.ok(produtoService.listarTodos());
     }
 
@@ -47,18 +62,31 @@ public class ProdutoController {
         return ResponseEntity.ok(produtoService.criar(produto));
     }
 
+    // Envie a versao lida para que uma edição concorrente resulte em 409 em vez de ser sobrescrita
     @PutMapping("/{id}")
-    public ResponseEntity<Produto> atualizar(
+    public ResponseEntity<?> atualizar(
             @PathVariable Long id,
             @RequestBody Produto produto) {
-        return ResponseEntity.ok(produtoService.atualizar(id, produto));
+        try {
+            return ResponseEntity.ok(produtoService.atualizar(id, produto));
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Produto alterado por outra operação; recarregue e tente novamente");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
     }
 
     @PatchMapping("/{id}/estoque")
-    public ResponseEntity<Produto> atualizarEstoque(
+    public ResponseEntity<?> atualizarEstoque(
             @PathVariable Long id,
             @RequestParam Integer quantidade) {
-        return ResponseEntity.ok(produtoService.atualizarEstoque(id, quantidade));
+        try {
+            return ResponseEntity.ok(produtoService.atualizarEstoque(id, quantidade));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
     }
 
     @DeleteMapping("/{id}")
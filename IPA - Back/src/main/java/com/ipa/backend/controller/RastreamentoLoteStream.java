@@ -0,0 +1,51 @@
+package com.ipa.backend.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipa.backend.service.RastreamentoService.VisaoRastreamento;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Escreve a resposta do rastreamento em lote como um array JSON, um item por código,
+ * à medida que os blocos são resolvidos, sem montar a lista inteira em memória.
+ */
+final class RastreamentoLoteStream {
+
+    private RastreamentoLoteStream() {
+    }
+
+    static StreamingResponseBody escrever(ObjectMapper objectMapper,
+                                          Consumer<BiConsumer<String, Optional<VisaoRastreamento>>> rastrear,
+                                          String mensagemNaoEncontrado) {
+        return out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                rastrear.accept((codigo, visao) -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeStringField("codigo", codigo);
+                        json.writeBooleanField("encontrado", visao.isPresent());
+                        if (visao.isPresent()) {
+                            json.writeStringField("etag", visao.get().etag());
+                            json.writeObjectField("dados", visao.get().dados());
+                        } else {
+                            json.writeStringField("message", mensagemNaoEncontrado + codigo);
+                        }
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
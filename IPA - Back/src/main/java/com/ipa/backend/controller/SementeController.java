@@ -1,8 +1,10 @@
 package com.ipa.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ipa.backend.dto.SementeDTO;
 import com.ipa.backend.service.SementeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,8 +20,17 @@ public class SementeController {
     @Autowired
     private SementeService sementeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // NDJSON em streaming com Accept: application/x-ndjson ou ?stream=true
     @GetMapping
-    public ResponseEntity<List<SementeDTO>> listarTodas() {
+    public ResponseEntity<?> listarTodas(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        if (NdjsonStream.solicitado(accept, stream)) {
+            return NdjsonStream.<SementeDTO>responder(objectMapper, sementeService::percorrerTodas);
+        }
         return ResponseEntity.ok(sementeService.listarTodas());
     }
 
@@ -118,6 +129,18 @@ public class SementeController {
         }
     }
 
+    // Estoque, reservado e disponível para novas aprovações
+    @GetMapping("/{id}/saldo")
+    public ResponseEntity<?> buscarSaldo(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(sementeService.buscarSaldo(id));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deletar(@PathVariable Long id) {
         try {
@@ -1,12 +1,18 @@
 package com.ipa.backend.controller;
 
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,11 +22,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipa.backend.dto.Pagina;
+import com.ipa.backend.dto.RastreamentoLoteDTO;
 import com.ipa.backend.dto.SolicitacaoDto;
+import com.ipa.backend.dto.StatusLoteDTO;
+import com.ipa.backend.dto.StatusLoteResultadoDTO;
+import com.ipa.backend.exception.EstoqueInsuficienteException;
+import com.ipa.backend.exception.ServicoSobrecarregadoException;
+import com.ipa.backend.service.HistoricoStatusService;
+import com.ipa.backend.service.RastreamentoEventosService;
+import com.ipa.backend.service.RastreamentoService;
 import com.ipa.backend.service.SolicitacaoService;
 
 @RestController
@@ -31,9 +52,38 @@ public class SolicitacaoController {
   @Autowired
   private SolicitacaoService solicitacaoService;
 
+  @Autowired
+  private RastreamentoService rastreamentoService;
+
+  @Autowired
+  private RastreamentoEventosService rastreamentoEventosService;
+
+  @Autowired
+  private HistoricoStatusService historicoStatusService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Paginado por cursor: ?cursor=<X-Next-Cursor da página anterior>&limite=50
+   * Com Accept: application/x-ndjson ou ?stream=true, envia todas em NDJSON (streaming)
+   */
   @GetMapping
-  public ResponseEntity<List<SolicitacaoDto>> listarTodas() {
-    return ResponseEntity.ok(solicitacaoService.listarTodas());
+  public ResponseEntity<?> listarTodas(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limite,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      @RequestParam(defaultValue = "false") boolean stream) {
+    if (NdjsonStream.solicitado(accept, stream)) {
+      return NdjsonStream.<SolicitacaoDto>responder(objectMapper, solicitacaoService::percorrerTodas);
+    }
+    try {
+      return responderPagina(solicitacaoService.listarTodas(cursor, limite));
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.badRequest().body(error);
+    }
   }
 
   @GetMapping("/{id}")
@@ -53,69 +103,123 @@ public class SolicitacaoController {
    * Exemplo: /api/solicitacoes/rastrear/SAFRA-2025-K7L8M9N0
    */
   @GetMapping("/rastrear/{codigo}")
-  public ResponseEntity<?> rastrearPorCodigo(@PathVariable String codigo) {
-    try {
-      SolicitacaoDto solicitacao = solicitacaoService.buscarPorCodigoRastreio(codigo);
-
-      // Criar resposta detalhada para o frontend
-      Map<String, Object> response = new HashMap<>();
-
-      // ✅ Informações básicas
-      response.put("id", solicitacao.getId());
-      response.put("codigoRastreio", solicitacao.getCodigoRastreio());
-      response.put("status", solicitacao.getStatus());
-
-      // ✅ Datas formatadas
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-      response.put("dataSolicitacao", solicitacao.getDataCriacao().format(formatter));
-      if (solicitacao.getDataAtualizacao() != null) {
-        response.put("dataAtualizacao", solicitacao.getDataAtualizacao().format(formatter));
-      }
-
-      // ✅ Informações do insumo
-      response.put("tipoInsumo", solicitacao.getTipoInsumo());
-      response.put("cultura", solicitacao.getCultura());
-      response.put("variedade", solicitacao.getVariedade());
-      response.put("quantidade", solicitacao.getQuantidade());
-      response.put("unidadeMedida", solicitacao.getUnidadeMedida());
-
-      // ✅ Informações do beneficiário
-      response.put("beneficiarioNome", solicitacao.getBeneficiarioNome());
-      response.put("beneficiarioCpf", solicitacao.getBeneficiarioCpf());
-      response.put("municipioDestino", solicitacao.getMunicipioDestino());
+  public ResponseEntity<?> rastrearPorCodigo(@PathVariable String codigo, WebRequest request) {
+    // Visão já montada e cacheada por código; If-None-Match é comparado sem tocar no banco
+    return rastreamentoService.rastrearSolicitacao(codigo)
+        .<ResponseEntity<?>>map(visao -> responderVisao(visao, request))
+        .orElseGet(() -> {
+          Map<String, String> error = new HashMap<>();
+          error.put("message", "Solicitação não encontrada com o código: " + codigo);
+          error.put("codigo", codigo);
+          return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        });
+  }
 
-      // ✅ Informações do solicitante
-      response.put("solicitanteNome", solicitacao.getSolicitanteNome());
-      response.put("localAtuacao", solicitacao.getLocalAtuacao());
+  /**
+   * 📡 ACOMPANHAMENTO EM TEMPO REAL (Server-Sent Events)
+   * GET /api/solicitacoes/rastrear/{codigo}/eventos
+   * Envia o estado atual e um evento "status" a cada mudança; "removido" encerra o fluxo
+   */
+  @GetMapping(value = "/rastrear/{codigo}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter acompanhar(@PathVariable String codigo, HttpServletRequest request) {
+    // SseEmitter precisa ser o tipo de retorno declarado; erros saem como ResponseStatusException
+    RastreamentoService.VisaoRastreamento visao = rastreamentoService.rastrearSolicitacao(codigo)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Solicitação não encontrada com o código: " + codigo));
 
-      // ✅ Etapas de rastreamento
-      response.put("etapas", gerarEtapasRastreamento(solicitacao.getStatus()));
+    try {
+      return rastreamentoEventosService.assinarSolicitacao(codigo, visao, request.getRemoteAddr());
+    } catch (ServicoSobrecarregadoException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+  }
 
-      // ✅ Observações
-      if (solicitacao.getObservacoes() != null) {
-        response.put("observacoes", solicitacao.getObservacoes());
-      }
+  /**
+   * 🔍 RASTREAMENTO EM LOTE
+   * POST /api/solicitacoes/rastrear/lote
+   * Body: { "codigos": ["SAFRA-2025-K7L8M9N0", ...] }
+   * Resposta: array JSON com um item por código (encontrado ou não), escrito em streaming
+   */
+  @PostMapping("/rastrear/lote")
+  public ResponseEntity<?> rastrearLote(@RequestBody RastreamentoLoteDTO lote) {
+    try {
+      rastreamentoService.validarLote(lote.getCodigos());
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.badRequest().body(error);
+    }
 
-      return ResponseEntity.ok(response);
+    StreamingResponseBody corpo = RastreamentoLoteStream.escrever(objectMapper,
+        consumidor -> rastreamentoService.rastrearSolicitacoes(lote.getCodigos(), consumidor),
+        "Solicitação não encontrada com o código: ");
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(corpo);
+  }
 
+  /**
+   * Linha do tempo de mudanças de status
+   * GET /api/solicitacoes/{id}/historico
+   */
+  @GetMapping("/{id}/historico")
+  public ResponseEntity<?> historico(@PathVariable Long id) {
+    try {
+      return ResponseEntity.ok(solicitacaoService.buscarHistorico(id));
     } catch (RuntimeException e) {
       Map<String, String> error = new HashMap<>();
-      error.put("message", "Solicitação não encontrada com o código: " + codigo);
-      error.put("codigo", codigo);
+      error.put("message", e.getMessage());
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
   }
 
+  /**
+   * Percentis de tempo por etapa (status) nas transições do período
+   * GET /api/solicitacoes/historico/lead-time?de=2025-01-01&ate=2025-03-31 (padrão: últimos 30 dias)
+   */
+  @GetMapping("/historico/lead-time")
+  public ResponseEntity<?> leadTime(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+    LocalDate fim = ate != null ? ate : LocalDate.now();
+    LocalDate inicio = de != null ? de : fim.minusDays(30);
+    try {
+      return ResponseEntity.ok(historicoStatusService.leadTime(HistoricoStatusService.SOLICITACAO, inicio, fim));
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.badRequest().body(error);
+    }
+  }
+
   @GetMapping("/status/{status}")
-  public ResponseEntity<List<SolicitacaoDto>> listarPorStatus(@PathVariable String status) {
-    return ResponseEntity.ok(solicitacaoService.listarPorStatus(status));
+  public ResponseEntity<?> listarPorStatus(
+      @PathVariable String status,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limite) {
+    try {
+      return responderPagina(solicitacaoService.listarPorStatus(status, cursor, limite));
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.badRequest().body(error);
+    }
   }
 
   @GetMapping("/solicitante/{cpf}")
-  public ResponseEntity<List<SolicitacaoDto>> buscarPorSolicitante(@PathVariable String cpf) {
-    return ResponseEntity.ok(solicitacaoService.buscarPorSolicitante(cpf));
+  public ResponseEntity<?> buscarPorSolicitante(
+      @PathVariable String cpf,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limite) {
+    try {
+      return responderPagina(solicitacaoService.buscarPorSolicitante(cpf, cursor, limite));
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.badRequest().body(error);
+    }
   }
 
+  // Com Idempotency-Key, repetições devolvem a primeira resposta (IdempotenciaFilter)
   @PostMapping
   public ResponseEntity<?> criar(@RequestBody SolicitacaoDto SolicitacaoDto) {
     try {
@@ -128,6 +232,10 @@ public class SolicitacaoController {
       response.put("codigoRastreio", nova.getCodigoRastreio());
 
       return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    } catch (EstoqueInsuficienteException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     } catch (RuntimeException e) {
       Map<String, String> error = new HashMap<>();
       error.put("message", e.getMessage());
@@ -141,6 +249,10 @@ public class SolicitacaoController {
       @RequestBody SolicitacaoDto SolicitacaoDto) {
     try {
       return ResponseEntity.ok(solicitacaoService.atualizar(id, SolicitacaoDto));
+    } catch (EstoqueInsuficienteException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     } catch (RuntimeException e) {
       Map<String, String> error = new HashMap<>();
       error.put("message", e.getMessage());
@@ -154,6 +266,10 @@ public class SolicitacaoController {
       @RequestParam String status) {
     try {
       return ResponseEntity.ok(solicitacaoService.atualizarStatus(id, status));
+    } catch (EstoqueInsuficienteException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     } catch (RuntimeException e) {
       Map<String, String> error = new HashMap<>();
       error.put("message", e.getMessage());
@@ -161,6 +277,27 @@ public class SolicitacaoController {
     }
   }
 
+  /**
+   * Mudança de status em lote (ids ou filtro), com o resultado de cada id.
+   */
+  @PatchMapping("/status")
+  public ResponseEntity<?> atualizarStatusEmLote(@RequestBody StatusLoteDTO lote) {
+    try {
+      List<StatusLoteResultadoDTO> resultados = solicitacaoService.atualizarStatusEmLote(lote);
+      Map<String, Object> resposta = new HashMap<>();
+      resposta.put("total", resultados.size());
+      resposta.put("atualizadas", resultados.stream()
+          .filter(r -> StatusLoteResultadoDTO.ATUALIZADA.equals(r.getResultado()))
+          .count());
+      resposta.put("resultados", resultados);
+      return ResponseEntity.ok(resposta);
+    } catch (RuntimeException e) {
+      Map<String, String> error = new HashMap<>();
+      error.put("message", e.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+  }
+
   @DeleteMapping("/{id}")
   public ResponseEntity<?> deletar(@PathVariable Long id) {
     try {
@@ -174,40 +311,30 @@ public class SolicitacaoController {
   }
 
   /**
-   * Gera as etapas de rastreamento com base no status atual
+   * 200 com ETag, ou 304 sem corpo quando o cliente já tem a versão atual.
+   * no-cache faz o navegador guardar a resposta e revalidar a cada consulta.
+   */
+  private ResponseEntity<?> responderVisao(RastreamentoService.VisaoRastreamento visao, WebRequest request) {
+    if (request.checkNotModified(visao.etag())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(visao.etag())
+          .cacheControl(CacheControl.noCache())
+          .build();
+    }
+    return ResponseEntity.ok()
+        .eTag(visao.etag())
+        .cacheControl(CacheControl.noCache())
+        .body(visao.dados());
+  }
+
+  /**
+   * Corpo continua sendo a lista de itens; o token da próxima página vai no header X-Next-Cursor.
    */
-  private List<Map<String, Object>> gerarEtapasRastreamento(String status) {
-    return List.of(
-        Map.of(
-            "etapa", "Solicitação Registrada",
-            "descricao", "Solicitação criada no sistema",
-            "concluida", true,
-            "icone", "📝"),
-        Map.of(
-            "etapa", "Em Análise",
-            "descricao", "Verificação de requisitos e disponibilidade",
-            "concluida", !status.equals("RASCUNHO"),
-            "icone", "🔍"),
-        Map.of(
-            "etapa", "Aprovada",
-            "descricao", "Solicitação aprovada pelo IPA",
-            "concluida", status.equals("APROVADA") || status.equals("EM_PREPARACAO") || status.equals("DESPACHADA")
-                || status.equals("ENTREGUE"),
-            "icone", "✅"),
-        Map.of(
-            "etapa", "Em Preparação",
-            "descricao", "Separação e embalagem do insumo",
-            "concluida", status.equals("EM_PREPARACAO") || status.equals("DESPACHADA") || status.equals("ENTREGUE"),
-            "icone", "📦"),
-        Map.of(
-            "etapa", "Despachada",
-            "descricao", "Insumo em rota de entrega",
-            "concluida", status.equals("DESPACHADA") || status.equals("ENTREGUE"),
-            "icone", "🚚"),
-        Map.of(
-            "etapa", "Entregue",
-            "descricao", "Insumo recebido pelo beneficiário",
-            "concluida", status.equals("ENTREGUE"),
-            "icone", "🎉"));
-  }
-}
\ No newline at end of file
+  private ResponseEntity<List<SolicitacaoDto>> responderPagina(Pagina<SolicitacaoDto> pagina) {
+    ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+    if (pagina.proximoCursor() != null) {
+      resposta.header(Pagina.HEADER_PROXIMO_CURSOR, pagina.proximoCursor());
+    }
+    return resposta.body(pagina.itens());
+  }
+}
@@ -3,6 +3,7 @@ package com.ipa.backend.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,9 +12,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ipa.backend.dto.UsuarioDTO;
 import com.ipa.backend.service.UsuarioService;
 
@@ -24,9 +28,17 @@ public class UsuarioController {
     @Autowired
     private UsuarioService usuarioService;
 
-    // ✅ GET - Listar todos os usuários
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // ✅ GET - Listar todos os usuários (NDJSON em streaming com Accept: application/x-ndjson ou ?stream=true)
     @GetMapping
-    public ResponseEntity<List<UsuarioDTO>> listarTodos() {
+    public ResponseEntity<?> listarTodos(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        if (NdjsonStream.solicitado(accept, stream)) {
+            return NdjsonStream.<UsuarioDTO>responder(objectMapper, usuarioService::percorrerTodos);
+        }
         List<UsuarioDTO> usuarios = usuarioService.listarTodos();
         return ResponseEntity.ok(usuarios);
     }
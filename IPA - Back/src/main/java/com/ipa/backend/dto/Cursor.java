@@ -0,0 +1,37 @@
+package com.ipa.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posição de paginação por chave (data de criação, id), serializada como token opaco.
+ * As listagens são em ordem decrescente; o cursor aponta para o último item já entregue.
+ */
+public record Cursor(LocalDateTime data, Long id) {
+
+    // Primeira página: antes de qualquer registro existente
+    public static final Cursor INICIO = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public String codificar() {
+        String valor = data + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cursor nulo ou vazio = primeira página.
+     */
+    public static Cursor decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new Cursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor de paginação inválido");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricoStatusDTO {
+    private String statusAnterior;
+    private String statusNovo;
+    private LocalDateTime dataTransicao;
+    private Long duracaoMs;
+}
@@ -0,0 +1,22 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tempo de permanência numa etapa (status), em milissegundos, no período consultado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadTimeEtapaDTO {
+    private String etapa;
+    private long quantidade;
+    private long mediaMs;
+    private long p50Ms;
+    private long p90Ms;
+    private long p95Ms;
+    private long p99Ms;
+    private long maximoMs;
+}
@@ -7,6 +7,7 @@ public class LoginResponseDTO {
     private String token;
     private UsuarioIpa usuario;
     private String message;
+    private String refreshToken;
 
     public LoginResponseDTO() {}
 
@@ -16,6 +17,11 @@ public class LoginResponseDTO {
         this.message = message;
     }
 
+    public LoginResponseDTO(String token, UsuarioIpa usuario, String message, String refreshToken) {
+        this(token, usuario, message);
+        this.refreshToken = refreshToken;
+    }
+
     // Getters e Setters
     public String getToken() {
         return token;
@@ -40,4 +46,12 @@ public class LoginResponseDTO {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
\ No newline at end of file
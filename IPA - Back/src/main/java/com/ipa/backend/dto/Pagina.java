@@ -0,0 +1,33 @@
+package com.ipa.backend.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem por cursor. proximoCursor é nulo na última página.
+ */
+public record Pagina<T>(List<T> itens, String proximoCursor) {
+
+    public static final String HEADER_PROXIMO_CURSOR = "X-Next-Cursor";
+
+    /**
+     * Limita o tamanho pedido pelo cliente ao intervalo [1, maximo].
+     */
+    public static int limitar(Integer pedido, int padrao, int maximo) {
+        if (pedido == null || pedido < 1) {
+            return padrao;
+        }
+        return Math.min(pedido, maximo);
+    }
+
+    /**
+     * Monta a página a partir de uma consulta feita com limite + 1 linhas:
+     * a linha extra só indica que existe próxima página.
+     */
+    public static <E, T> Pagina<T> de(List<E> linhas, int limite, Function<E, Cursor> cursor, Function<E, T> conversor) {
+        boolean temMais = linhas.size() > limite;
+        List<E> itens = temMais ? linhas.subList(0, limite) : linhas;
+        String proximo = temMais ? cursor.apply(itens.get(itens.size() - 1)).codificar() : null;
+        return new Pagina<>(itens.stream().map(conversor).toList(), proximo);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ipa.backend.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Setter
 @Getter
+@AllArgsConstructor
 public class PedidoDTO {
     // Getters e Setters
     private Long id;
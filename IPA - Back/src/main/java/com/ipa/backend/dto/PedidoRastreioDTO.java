@@ -0,0 +1,27 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projeção com apenas as colunas usadas pela visão pública de rastreamento do pedido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoRastreioDTO {
+    private Long id;
+    private String numeroRastreio;
+    private String status;
+    private LocalDateTime dataPedido;
+    private LocalDateTime dataEntrega;
+    private String produtoNome;
+    private Integer quantidade;
+    private BigDecimal valorTotal;
+    private String usuarioNome;
+    private String observacoes;
+}
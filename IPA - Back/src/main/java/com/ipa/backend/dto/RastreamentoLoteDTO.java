@@ -0,0 +1,14 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RastreamentoLoteDTO {
+    private List<String> codigos;
+}
@@ -0,0 +1,18 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoSementeDTO {
+    private Long sementeId;
+    private Integer estoque;
+    private Integer reservado;
+
+    public Integer getDisponivel() {
+        return estoque - reservado;
+    }
+}
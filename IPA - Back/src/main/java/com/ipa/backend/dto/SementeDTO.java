@@ -25,4 +25,5 @@ public class SementeDTO {
     private LocalDateTime dataCriacao;
     private LocalDateTime dataAtualizacao;
     private String observacoes;
+    private Integer estoqueReservado;
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção com apenas as colunas usadas pela visão pública de rastreamento da solicitação.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolicitacaoRastreioDTO {
+    private Long id;
+    private String codigoRastreio;
+    private String status;
+    private LocalDateTime dataCriacao;
+    private LocalDateTime dataAtualizacao;
+    private String tipoInsumo;
+    private String cultura;
+    private String variedade;
+    private Integer quantidade;
+    private String unidadeMedida;
+    private String beneficiarioNome;
+    private String beneficiarioCpf;
+    private String municipioDestino;
+    private String solicitanteNome;
+    private String localAtuacao;
+    private String observacoes;
+}
@@ -0,0 +1,21 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Mudança de status em lote: os ids informados, ou (sem ids) todas as solicitações em
+ * statusAtual, opcionalmente de um município. Só muda quem ainda está em statusAtual.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusLoteDTO {
+    private List<Long> ids;
+    private String statusAtual;
+    private String novoStatus;
+    private String municipioDestino;
+}
@@ -0,0 +1,20 @@
+package com.ipa.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusLoteResultadoDTO {
+    public static final String ATUALIZADA = "ATUALIZADA";
+    public static final String NAO_ENCONTRADA = "NAO_ENCONTRADA";
+    public static final String STATUS_DIVERGENTE = "STATUS_DIVERGENTE";
+    public static final String ESTOQUE_INSUFICIENTE = "ESTOQUE_INSUFICIENTE";
+
+    private Long id;
+    private String resultado;
+    // Status após a operação (para STATUS_DIVERGENTE e ESTOQUE_INSUFICIENTE, o status encontrado)
+    private String status;
+}
@@ -0,0 +1,19 @@
+package com.ipa.backend.exception;
+
+/**
+ * Lançada quando uma Idempotency-Key não pode ser atendida: reutilizada com outro corpo (422)
+ * ou ainda em processamento pela requisição original após a espera (409).
+ */
+public class ChaveIdempotenciaException extends RuntimeException {
+
+    private final int status;
+
+    public ChaveIdempotenciaException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ipa.backend.exception;
+
+/**
+ * Lançada quando a quantidade pedida não pode ser reservada (sem saldo, sem semente compatível
+ * ou quantidade inválida).
+ * Não marca a transação para rollback por si só: quem processa em lote pode seguir com os demais itens.
+ */
+public class EstoqueInsuficienteException extends RuntimeException {
+
+    public EstoqueInsuficienteException(String message) {
+        super(message);
+    }
+}
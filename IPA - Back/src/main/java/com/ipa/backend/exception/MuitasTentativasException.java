@@ -0,0 +1,19 @@
+package com.ipa.backend.exception;
+
+/**
+ * Lançada quando um CPF ou endereço excedeu o limite de tentativas de login.
+ * Os controllers devem responder 429 com Retry-After.
+ */
+public class MuitasTentativasException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public MuitasTentativasException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ipa.backend.exception;
+
+/**
+ * Lançada quando um recurso limitado (ex.: pool de BCrypt) está saturado.
+ * Os controllers devem responder 503 com Retry-After em vez de enfileirar a requisição.
+ */
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServicoSobrecarregadoException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
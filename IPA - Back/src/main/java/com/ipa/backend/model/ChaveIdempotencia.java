@@ -0,0 +1,55 @@
+package com.ipa.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resposta guardada de uma criação feita com Idempotency-Key. EM_ANDAMENTO enquanto a primeira
+ * requisição roda (expiraEm curto, para não prender a chave se a instância cair); CONCLUIDA depois.
+ * A linha pode ser apagada após expiraEm.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(
+  name = "tb_idempotencia",
+  indexes = {
+    @Index(name = "idx_idempotencia_expira_em", columnList = "expira_em")
+  }
+)
+public class ChaveIdempotencia {
+
+  // SHA-256 (hex) de método, caminho, usuário e Idempotency-Key
+  @Id
+  @Column(length = 64)
+  private String chave;
+
+  // SHA-256 (hex) do corpo da requisição: a mesma chave com outro corpo é recusada
+  @Column(name = "hash_requisicao", nullable = false, length = 64)
+  private String hashRequisicao;
+
+  @Column(nullable = false, length = 20)
+  private String status;
+
+  @Column(name = "http_status")
+  private Integer httpStatus;
+
+  @Column(name = "content_type", length = 100)
+  private String contentType;
+
+  @Column(columnDefinition = "MEDIUMBLOB")
+  private byte[] corpo;
+
+  @Column(name = "data_criacao", nullable = false)
+  private LocalDateTime dataCriacao;
+
+  @Column(name = "expira_em", nullable = false)
+  private LocalDateTime expiraEm;
+}
@@ -0,0 +1,28 @@
+package com.ipa.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Último lançamento do diário de estoque (por nó) já aplicado em tb_produtos/tb_sementes.
+ * Gravado na mesma transação das baixas, para que a reaplicação do diário seja idempotente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_estoque_checkpoint")
+public class EstoqueCheckpoint {
+
+  @Id
+  @Column(length = 50)
+  private String no;
+
+  @Column(name = "ultimo_seq", nullable = false)
+  private Long ultimoSeq;
+}
@@ -0,0 +1,23 @@
+package com.ipa.backend.model;
+
+import java.util.List;
+
+/**
+ * Parâmetros do gerador de ids das entidades (@IdEmBloco, reservados por ReservaIds).
+ * Cada tabela tem uma linha em tb_id_sequencias; uma ida ao banco reserva BLOCO ids,
+ * o que permite ao Hibernate agrupar os INSERTs em lote (com IDENTITY isso não é possível).
+ */
+public final class GeradorIds {
+
+    public static final String TABELA = "tb_id_sequencias";
+    public static final String COLUNA_NOME = "tabela";
+    public static final String COLUNA_VALOR = "proximo_id";
+    public static final int BLOCO = 50;
+
+    /** Tabelas que usam o gerador; as sequências partem do maior id já existente. */
+    public static final List<String> TABELAS = List.of(
+            "tb_pedidos", "tb_produtos", "tb_reservas_estoque", "tb_sementes", "tb_solicitacoes", "tb_usuarios",
+            "tb_usuarios_ipa");
+
+    private GeradorIds() {}
+}
@@ -0,0 +1,58 @@
+package com.ipa.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Diário append-only de mudanças de status de solicitações e pedidos.
+ * duracaoMs é o tempo que o registro passou em statusAnterior (lead time da etapa).
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(
+  name = "tb_historico_status",
+  indexes = {
+    // Linha do tempo de um registro
+    @Index(name = "idx_hist_registro", columnList = "tipo, registro_id, data_transicao"),
+    // Lead time por etapa num período: índice de cobertura, a consulta não lê a tabela
+    @Index(name = "idx_hist_lead_time", columnList = "tipo, data_transicao, status_anterior, duracao_ms")
+  }
+)
+public class HistoricoStatus {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  // SOLICITACAO ou PEDIDO
+  @Column(nullable = false, length = 20)
+  private String tipo;
+
+  @Column(name = "registro_id", nullable = false)
+  private Long registroId;
+
+  @Column(name = "codigo_rastreio", length = 30)
+  private String codigoRastreio;
+
+  @Column(name = "status_anterior", length = 30)
+  private String statusAnterior;
+
+  @Column(name = "status_novo", nullable = false, length = 30)
+  private String statusNovo;
+
+  @Column(name = "data_transicao", nullable = false)
+  private LocalDateTime dataTransicao;
+
+  @Column(name = "duracao_ms")
+  private Long duracaoMs;
+}
@@ -0,0 +1,21 @@
+package com.ipa.backend.model;
+
+import com.ipa.backend.config.GeradorIdsEmBloco;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id reservado em blocos de tb_id_sequencias (ver GeradorIds). O valor é a linha da
+ * sequência, por convenção o nome da tabela da entidade.
+ */
+@IdGeneratorType(GeradorIdsEmBloco.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdEmBloco {
+
+    String value();
+}
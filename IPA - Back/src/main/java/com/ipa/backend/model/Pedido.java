@@ -5,20 +5,29 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tb_pedidos")
+@Table(
+    name = "tb_pedidos",
+    indexes = {
+        // Paginação por chave (data_pedido, id); o id entra implícito no índice do InnoDB
+        @Index(name = "idx_pedido_data", columnList = "data_pedido"),
+        @Index(name = "idx_pedido_status_data", columnList = "status, data_pedido"),
+        @Index(name = "idx_pedido_usuario_data", columnList = "usuario_id, data_pedido")
+    }
+)
 public class Pedido {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmBloco("tb_pedidos")
     private Long id;
 
     @Column(unique = true, nullable = false)
     private String numeroRastreio;
 
-    @ManyToOne
+    // LAZY: quem precisa do usuário/produto busca com @EntityGraph (ver PedidoRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "produto_id", nullable = false)
     private Produto produto;
 
@@ -1,13 +1,16 @@
 package com.ipa.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 
 @Entity
+// UPDATE só com as colunas alteradas: editar o cadastro não regrava o estoque (ver MotorEstoqueService)
+@DynamicUpdate
 @Table(name = "tb_produtos")
 public class Produto {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmBloco("tb_produtos")
     private Long id;
 
     @Column(nullable = false)
@@ -24,6 +27,12 @@ public class Produto {
 
     private String unidadeMedida; // kg, unidade, saco, etc
 
+    // Trava otimista das edições do cadastro; as baixas atômicas de estoque também a incrementam.
+    // Sem valor inicial: um PUT sem versao chega como null e não passa pela checagem
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     // Construtores
     public Produto() {}
 
@@ -48,4 +57,7 @@ public class Produto {
 
     public String getUnidadeMedida() { return unidadeMedida; }
     public void setUnidadeMedida(String unidadeMedida) { this.unidadeMedida = unidadeMedida; }
+
+    public Long getVersao() { return versao; }
+    public void setVersao(Long versao) { this.versao = versao; }
 }
\ No newline at end of file
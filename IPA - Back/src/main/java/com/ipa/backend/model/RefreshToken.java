@@ -0,0 +1,53 @@
+package com.ipa.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Refresh token rotativo. Só o hash SHA-256 do valor é persistido.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(
+  name = "tb_refresh_tokens",
+  indexes = {
+    @Index(name = "idx_refresh_usuario", columnList = "usuario_id"),
+    @Index(name = "idx_refresh_expira_em", columnList = "expira_em")
+  }
+)
+public class RefreshToken {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+  private String tokenHash;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "usuario_id", nullable = false)
+  private UsuarioIpa usuario;
+
+  @Column(name = "expira_em", nullable = false)
+  private LocalDateTime expiraEm;
+
+  @Column(name = "data_criacao", nullable = false)
+  private LocalDateTime dataCriacao;
+
+  // Preenchido quando o token é usado (rotação) ou revogado (logout)
+  @Column(name = "revogado_em")
+  private LocalDateTime revogadoEm;
+}
@@ -0,0 +1,54 @@
+package com.ipa.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantidade de uma semente separada para uma solicitação aprovada.
+ * Enquanto ATIVA, conta em tb_sementes.estoque_reservado; expiraEm nulo = sem prazo.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(
+  name = "tb_reservas_estoque",
+  indexes = {
+    // Expiração: só as ativas vencidas, na ordem do vencimento, sem varrer a tabela
+    @Index(name = "idx_reserva_expiracao", columnList = "status, expira_em")
+  }
+)
+public class ReservaEstoque {
+
+  @Id
+  @IdEmBloco("tb_reservas_estoque")
+  private Long id;
+
+  @Column(name = "solicitacao_id", nullable = false, unique = true)
+  private Long solicitacaoId;
+
+  @Column(name = "semente_id", nullable = false)
+  private Long sementeId;
+
+  @Column(nullable = false)
+  private Integer quantidade;
+
+  // ATIVA, CONSUMIDA, LIBERADA ou EXPIRADA
+  @Column(nullable = false, length = 20)
+  private String status;
+
+  @Column(name = "data_criacao", nullable = false)
+  private LocalDateTime dataCriacao;
+
+  @Column(name = "expira_em")
+  private LocalDateTime expiraEm;
+
+  @Column(name = "data_finalizacao")
+  private LocalDateTime dataFinalizacao;
+}
@@ -1,6 +1,7 @@
 package com.ipa.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,11 +12,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// UPDATE só com as colunas alteradas: editar o cadastro não regrava o estoque (ver MotorEstoqueService)
+@DynamicUpdate
 @Table(name = "tb_sementes")
 public class Semente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmBloco("tb_sementes")
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -36,6 +39,10 @@ public class Semente {
     @Column(nullable = false)
     private Integer estoqueDisponivel;
 
+    // Soma das reservas ativas (ReservaEstoque); o que pode ser aprovado é estoqueDisponivel - estoqueReservado
+    @Column(name = "estoque_reservado", nullable = false)
+    private Integer estoqueReservado = 0;
+
     @Column(nullable = false, length = 20)
     private String unidadeMedida; // KG, UNIDADE, SACO, LITRO
 
@@ -64,6 +71,9 @@ public class Semente {
         if (this.ativo == null) {
             this.ativo = true;
         }
+        if (this.estoqueReservado == null) {
+            this.estoqueReservado = 0;
+        }
     }
 
     @PreUpdate
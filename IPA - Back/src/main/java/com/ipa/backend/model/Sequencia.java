@@ -0,0 +1,28 @@
+package com.ipa.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador nomeado persistente. As instâncias reservam blocos de valores
+ * (proximoValor avança pelo tamanho do bloco, via ReservaIds) e os consomem em memória.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_sequencias")
+public class Sequencia {
+
+  @Id
+  @Column(length = 50)
+  private String nome;
+
+  @Column(name = "proximo_valor", nullable = false)
+  private Long proximoValor;
+}
@@ -0,0 +1,28 @@
+package com.ipa.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Linha de tb_id_sequencias: primeiro id do próximo bloco de cada tabela.
+ * Mapeada só para o ddl-auto criar a tabela; a leitura e o avanço ficam em ReservaIds.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = GeradorIds.TABELA)
+public class SequenciaIds {
+
+  @Id
+  @Column(name = GeradorIds.COLUNA_NOME)
+  private String tabela;
+
+  @Column(name = GeradorIds.COLUNA_VALOR)
+  private Long proximoId;
+}
@@ -7,8 +7,6 @@ import java.time.LocalDateTime;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
@@ -16,6 +14,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import org.hibernate.Hibernate;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -29,13 +28,16 @@ import lombok.NoArgsConstructor;
   indexes = {
     @Index(name = "idx_codigo_rastreio", columnList = "codigo_rastreio"),
     @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_data_criacao", columnList = "data_criacao")
+    @Index(name = "idx_data_criacao", columnList = "data_criacao"),
+    // Paginação por chave dentro de um filtro: (filtro, data_criacao) + id implícito do InnoDB
+    @Index(name = "idx_status_data_criacao", columnList = "status, data_criacao"),
+    @Index(name = "idx_solicitante_cpf_data_criacao", columnList = "solicitante_cpf, data_criacao")
   }
 )
 public class Solicitacao {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @IdEmBloco("tb_solicitacoes")
   private Long id;
 
   // ===== RELACIONAMENTO COM USUÁRIO IPA (SOLICITANTE) =====
@@ -164,8 +166,8 @@ public class Solicitacao {
       this.status = "RASCUNHO";
     }
 
-    // Sincronizar dados do solicitante
-    if (this.solicitante != null) {
+    // Sincronizar dados do solicitante (uma referência não carregada não é lida: os campos vêm do serviço)
+    if (this.solicitante != null && Hibernate.isInitialized(this.solicitante)) {
       this.solicitanteNome = this.solicitante.getNome();
       this.solicitanteCpf = this.solicitante.getCpf();
       this.solicitanteMatricula = this.solicitante.getMatriculaIpa();
@@ -174,7 +176,7 @@ public class Solicitacao {
     }
 
     // Sincronizar dados do beneficiário
-    if (this.beneficiario != null) {
+    if (this.beneficiario != null && Hibernate.isInitialized(this.beneficiario)) {
       this.beneficiarioNome = this.beneficiario.getNome();
       this.beneficiarioCpf = this.beneficiario.getCpf();
       this.beneficiarioCep = this.beneficiario.getCep();
@@ -187,7 +189,7 @@ public class Solicitacao {
     this.dataAtualizacao = LocalDateTime.now();
 
     // Atualizar dados do solicitante se o relacionamento mudou
-    if (this.solicitante != null) {
+    if (this.solicitante != null && Hibernate.isInitialized(this.solicitante)) {
       this.solicitanteNome = this.solicitante.getNome();
       this.solicitanteCpf = this.solicitante.getCpf();
       this.solicitanteMatricula = this.solicitante.getMatriculaIpa();
@@ -196,7 +198,7 @@ public class Solicitacao {
     }
 
     // Atualizar dados do beneficiário se o relacionamento mudou
-    if (this.beneficiario != null) {
+    if (this.beneficiario != null && Hibernate.isInitialized(this.beneficiario)) {
       this.beneficiarioNome = this.beneficiario.getNome();
       this.beneficiarioCpf = this.beneficiario.getCpf();
       this.beneficiarioCep = this.beneficiario.getCep();
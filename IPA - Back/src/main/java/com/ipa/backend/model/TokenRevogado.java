@@ -0,0 +1,35 @@
+package com.ipa.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * jti de access token revogado antes de expirar. A linha pode ser apagada após expiraEm.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+  name = "tb_tokens_revogados",
+  indexes = {
+    @Index(name = "idx_revogado_expira_em", columnList = "expira_em")
+  }
+)
+public class TokenRevogado {
+
+  @Id
+  @Column(length = 36)
+  private String jti;
+
+  @Column(name = "expira_em", nullable = false)
+  private LocalDateTime expiraEm;
+}
@@ -1,21 +1,26 @@
 package com.ipa.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ipa.backend.cache.UsuarioCacheListener;
 import com.ipa.backend.constants.TipoPropriedade;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Email;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+@EntityListeners(UsuarioCacheListener.class)
 @Table(name = "tb_usuarios")
 @Data
 @NoArgsConstructor
@@ -23,7 +28,7 @@ import lombok.NoArgsConstructor;
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmBloco("tb_usuarios")
     private Long id;
 
     @Column(nullable = false)
@@ -49,4 +54,11 @@ public class Usuario {
     @Column(length = 2, name = "UF")
     private String estado;
 
+    // CPF com que a linha foi lida ou gravada por último (UsuarioCacheListener)
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String cpfAnterior;
+
 }
\ No newline at end of file
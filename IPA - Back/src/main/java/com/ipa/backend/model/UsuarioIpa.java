@@ -1,24 +1,30 @@
 package com.ipa.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ipa.backend.cache.UsuarioIpaCacheListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@EntityListeners(UsuarioIpaCacheListener.class)
 @Table(name = "tb_usuarios_ipa")
 public class UsuarioIpa {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @IdEmBloco("tb_usuarios_ipa")
   private Long id;
 
   @Column(length = 150, nullable = false)
@@ -52,4 +58,16 @@ public void setCpf(String cpf) {
 
   @Column(length = 2)
   private String uf;
+
+  // Versão dos tokens emitidos: incrementar revoga todos os tokens anteriores do usuário
+  @Column(name = "token_version")
+  private Integer tokenVersion = 0;
+
+  // CPF com que a linha foi lida ou gravada por último (UsuarioIpaCacheListener): numa troca
+  // de CPF o cache do antigo também é invalidado
+  @Transient
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private String cpfAnterior;
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.ipa.backend.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ipa.backend.model.ChaveIdempotencia;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+
+  // INSERT IGNORE: 1 = a chave é desta requisição, 0 = outra já a registrou
+  @Modifying
+  @Query(value = "INSERT IGNORE INTO tb_idempotencia (chave, hash_requisicao, status, data_criacao, expira_em) "
+      + "VALUES (:chave, :hash, 'EM_ANDAMENTO', :agora, :expiraEm)", nativeQuery = true)
+  int reservar(@Param("chave") String chave, @Param("hash") String hash, @Param("agora") LocalDateTime agora,
+      @Param("expiraEm") LocalDateTime expiraEm);
+
+  // Reaproveita uma linha vencida (resposta expirada ou requisição original que não terminou)
+  @Modifying
+  @Query("UPDATE ChaveIdempotencia c SET c.status = 'EM_ANDAMENTO', c.hashRequisicao = :hash, c.httpStatus = null, "
+      + "c.contentType = null, c.corpo = null, c.dataCriacao = :agora, c.expiraEm = :expiraEm "
+      + "WHERE c.chave = :chave AND c.expiraEm < :agora")
+  int reservarVencida(@Param("chave") String chave, @Param("hash") String hash, @Param("agora") LocalDateTime agora,
+      @Param("expiraEm") LocalDateTime expiraEm);
+
+  @Modifying
+  @Query("UPDATE ChaveIdempotencia c SET c.status = 'CONCLUIDA', c.httpStatus = :httpStatus, "
+      + "c.contentType = :contentType, c.corpo = :corpo, c.expiraEm = :expiraEm "
+      + "WHERE c.chave = :chave AND c.status = 'EM_ANDAMENTO'")
+  int concluir(@Param("chave") String chave, @Param("httpStatus") int httpStatus,
+      @Param("contentType") String contentType, @Param("corpo") byte[] corpo,
+      @Param("expiraEm") LocalDateTime expiraEm);
+
+  @Modifying
+  @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.status = 'EM_ANDAMENTO'")
+  int abandonar(@Param("chave") String chave);
+
+  @Modifying
+  @Query("DELETE FROM ChaveIdempotencia c WHERE c.expiraEm < :agora")
+  int deletarExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,25 @@
+package com.ipa.backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ipa.backend.model.HistoricoStatus;
+
+@Repository
+public interface HistoricoStatusRepository extends JpaRepository<HistoricoStatus, Long> {
+
+  List<HistoricoStatus> findByTipoAndRegistroIdOrderByDataTransicaoAsc(String tipo, Long registroId);
+
+  Optional<HistoricoStatus> findFirstByTipoAndRegistroIdOrderByDataTransicaoDesc(String tipo, Long registroId);
+
+  // [registroId, dataTransicao] da última transição de cada registro (índice idx_hist_registro)
+  @Query("SELECT h.registroId, MAX(h.dataTransicao) FROM HistoricoStatus h "
+      + "WHERE h.tipo = :tipo AND h.registroId IN :ids GROUP BY h.registroId")
+  List<Object[]> ultimasTransicoes(@Param("tipo") String tipo, @Param("ids") Collection<Long> ids);
+}
@@ -1,15 +1,74 @@
 package com.ipa.backend.repository;
 
+import com.ipa.backend.dto.PedidoDTO;
+import com.ipa.backend.dto.PedidoRastreioDTO;
 import com.ipa.backend.model.Pedido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+    // usuario e produto vêm no mesmo SELECT (JOIN), em vez de uma consulta por pedido
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "produto"})
+    Optional<Pedido> findById(Long id);
+
+    @EntityGraph(attributePaths = {"usuario", "produto"})
     Optional<Pedido> findByNumeroRastreio(String numeroRastreio);
+
+    @EntityGraph(attributePaths = {"usuario", "produto"})
     List<Pedido> findByStatus(String status);
+
+    @EntityGraph(attributePaths = {"usuario", "produto"})
     List<Pedido> findByUsuarioId(Long usuarioId);
-}
\ No newline at end of file
+
+    // ===== PROJEÇÕES (leitura sem entidade gerenciada) =====
+
+    // JOIN explícito: nomes do usuário e do produto na mesma consulta, sem carregar as entidades
+    String SELECT_DTO = "SELECT new com.ipa.backend.dto.PedidoDTO("
+            + "p.id, p.numeroRastreio, u.id, u.nome, pr.id, pr.nome, "
+            + "p.quantidade, p.valorTotal, p.status, p.dataPedido, p.dataEntrega, p.observacoes) "
+            + "FROM Pedido p JOIN p.usuario u JOIN p.produto pr ";
+
+    String SELECT_RASTREIO = "SELECT new com.ipa.backend.dto.PedidoRastreioDTO("
+            + "p.id, p.numeroRastreio, p.status, p.dataPedido, p.dataEntrega, "
+            + "pr.nome, p.quantidade, p.valorTotal, u.nome, p.observacoes) "
+            + "FROM Pedido p JOIN p.usuario u JOIN p.produto pr ";
+
+    // ===== PAGINAÇÃO POR CHAVE (data_pedido, id), mais recentes primeiro =====
+
+    @Query(SELECT_DTO
+            + "WHERE p.dataPedido < :data OR (p.dataPedido = :data AND p.id < :id) "
+            + "ORDER BY p.dataPedido DESC, p.id DESC")
+    List<PedidoDTO> paginaApos(@Param("data") LocalDateTime data, @Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_DTO + "WHERE p.status = :status "
+            + "AND (p.dataPedido < :data OR (p.dataPedido = :data AND p.id < :id)) "
+            + "ORDER BY p.dataPedido DESC, p.id DESC")
+    List<PedidoDTO> paginaPorStatusApos(@Param("status") String status, @Param("data") LocalDateTime data,
+                                        @Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_DTO + "WHERE u.id = :usuarioId "
+            + "AND (p.dataPedido < :data OR (p.dataPedido = :data AND p.id < :id)) "
+            + "ORDER BY p.dataPedido DESC, p.id DESC")
+    List<PedidoDTO> paginaPorUsuarioApos(@Param("usuarioId") Long usuarioId, @Param("data") LocalDateTime data,
+                                         @Param("id") Long id, Pageable limite);
+
+    // ===== RASTREAMENTO =====
+
+    @Query(SELECT_RASTREIO + "WHERE p.numeroRastreio = :codigo")
+    Optional<PedidoRastreioDTO> buscarRastreio(@Param("codigo") String codigo);
+
+    // Rastreamento em lote: um único IN por bloco de códigos
+    @Query(SELECT_RASTREIO + "WHERE p.numeroRastreio IN :codigos")
+    List<PedidoRastreioDTO> buscarRastreios(@Param("codigos") Collection<String> codigos);
+}
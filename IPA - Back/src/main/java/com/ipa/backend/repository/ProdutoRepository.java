@@ -1,13 +1,39 @@
 package com.ipa.backend.repository;
 
 import com.ipa.backend.model.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     List<Produto> findByCategoria(String categoria);
     List<Produto> findByNomeContainingIgnoreCase(String nome);
-}
\ No newline at end of file
+
+    // Baixa condicional numa única instrução: 0 linhas afetadas = estoque insuficiente ou produto inexistente
+    @Modifying
+    @Query("UPDATE Produto p SET p.estoque = p.estoque - :quantidade, p.versao = p.versao + 1 "
+            + "WHERE p.id = :id AND p.estoque >= :quantidade")
+    int baixarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Ajuste relativo (entrada ou saída), sem deixar o estoque negativo
+    @Modifying
+    @Query("UPDATE Produto p SET p.estoque = p.estoque + :quantidade, p.versao = p.versao + 1 "
+            + "WHERE p.id = :id AND p.estoque + :quantidade >= 0")
+    int ajustarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Produto p ORDER BY p.id")
+    Stream<Produto> streamTodos();
+}
@@ -0,0 +1,31 @@
+package com.ipa.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ipa.backend.model.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+  Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+  // Escrita condicional: de duas rotações simultâneas do mesmo token, só uma recebe 1
+  @Modifying
+  @Query("UPDATE RefreshToken r SET r.revogadoEm = :agora WHERE r.tokenHash = :tokenHash AND r.revogadoEm IS NULL")
+  int revogarSeAtivo(@Param("tokenHash") String tokenHash, @Param("agora") LocalDateTime agora);
+
+  @Modifying
+  @Query("UPDATE RefreshToken r SET r.revogadoEm = :agora WHERE r.usuario.id = :usuarioId AND r.revogadoEm IS NULL")
+  int revogarTodosDoUsuario(@Param("usuarioId") Long usuarioId, @Param("agora") LocalDateTime agora);
+
+  @Modifying
+  @Query("DELETE FROM RefreshToken r WHERE r.expiraEm < :limite")
+  int deletarExpirados(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,37 @@
+package com.ipa.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ipa.backend.model.ReservaEstoque;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ReservaEstoqueRepository extends JpaRepository<ReservaEstoque, Long> {
+
+  Optional<ReservaEstoque> findBySolicitacaoId(Long solicitacaoId);
+
+  // Serializa mudanças de status da mesma solicitação com a expiração da sua reserva
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT r FROM ReservaEstoque r WHERE r.solicitacaoId = :solicitacaoId")
+  Optional<ReservaEstoque> bloquearPorSolicitacao(@Param("solicitacaoId") Long solicitacaoId);
+
+  // Vencidas mais antigas primeiro (índice idx_reserva_expiracao). SKIP LOCKED (-2): outra
+  // instância expirando ao mesmo tempo pega as linhas seguintes em vez de esperar
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("SELECT r FROM ReservaEstoque r WHERE r.status = :status AND r.expiraEm <= :agora ORDER BY r.expiraEm")
+  List<ReservaEstoque> bloquearVencidas(@Param("status") String status, @Param("agora") LocalDateTime agora,
+      Pageable limite);
+}
@@ -1,9 +1,19 @@
 package com.ipa.backend.repository;
 
+import com.ipa.backend.dto.SaldoSementeDTO;
+import com.ipa.backend.dto.SementeDTO;
 import com.ipa.backend.model.Semente;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SementeRepository extends JpaRepository<Semente, Long> {
@@ -19,4 +29,80 @@ public interface SementeRepository extends JpaRepository<Semente, Long> {
     List<Semente> findByNomeContainingIgnoreCase(String nome);
     
     List<Semente> findByAtivoTrueOrderByNomeAsc();
-}
\ No newline at end of file
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Semente s ORDER BY s.id")
+    Stream<Semente> streamTodas();
+
+    // ===== PROJEÇÕES (listagens somente-leitura, sem entidade gerenciada) =====
+
+    String SELECT_DTO = "SELECT new com.ipa.backend.dto.SementeDTO("
+            + "s.id, s.nome, s.tipo, s.cultura, s.variedade, s.descricao, s.estoqueDisponivel, s.unidadeMedida, "
+            + "s.pesoUnidade, s.ativo, s.imagemUrl, s.dataCriacao, s.dataAtualizacao, s.observacoes, "
+            + "s.estoqueReservado) "
+            + "FROM Semente s ";
+
+    @Query(SELECT_DTO)
+    List<SementeDTO> listarTodas();
+
+    @Query(SELECT_DTO + "WHERE s.ativo = true ORDER BY s.nome ASC")
+    List<SementeDTO> listarAtivas();
+
+    @Query(SELECT_DTO + "WHERE s.tipo = :tipo")
+    List<SementeDTO> listarPorTipo(@Param("tipo") String tipo);
+
+    @Query(SELECT_DTO + "WHERE s.cultura = :cultura")
+    List<SementeDTO> listarPorCultura(@Param("cultura") String cultura);
+
+    // ===== RESERVAS (ReservaEstoqueService) =====
+
+    @Query("SELECT new com.ipa.backend.dto.SaldoSementeDTO(s.id, s.estoqueDisponivel, s.estoqueReservado) "
+            + "FROM Semente s WHERE s.id = :id")
+    Optional<SaldoSementeDTO> buscarSaldo(@Param("id") Long id);
+
+    @Query("SELECT s.id FROM Semente s WHERE s.ativo = true AND LOWER(s.tipo) = LOWER(:tipo) "
+            + "AND LOWER(s.cultura) = LOWER(:cultura) "
+            + "AND (:variedade IS NULL OR LOWER(s.variedade) = LOWER(:variedade)) ORDER BY s.id")
+    List<Long> buscarCompativeis(@Param("tipo") String tipo, @Param("cultura") String cultura,
+                                 @Param("variedade") String variedade);
+
+    // Condicional: a trava da linha serializa aprovações concorrentes e 0 linhas = sem saldo
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueReservado = s.estoqueReservado + :quantidade "
+            + "WHERE s.id = :id AND s.estoqueDisponivel - s.estoqueReservado >= :quantidade")
+    int reservar(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Com o motor de estoque a coluna estoque_disponivel fica atrás do real: trava a linha e o
+    // chamador compara o reservado com o saldo do motor antes de mexer nela
+    @Query(value = "SELECT estoque_reservado FROM tb_sementes WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> bloquearReservado(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueReservado = s.estoqueReservado + :quantidade WHERE s.id = :id")
+    int somarReserva(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueReservado = s.estoqueReservado - :quantidade WHERE s.id = :id")
+    int liberarReserva(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Ajuste manual do estoque: nunca abaixo do que já está reservado
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueDisponivel = :quantidade "
+            + "WHERE s.id = :id AND s.estoqueReservado <= :quantidade")
+    int definirEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Entrega: a quantidade sai do estoque e da reserva juntas
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueDisponivel = s.estoqueDisponivel - :quantidade, "
+            + "s.estoqueReservado = s.estoqueReservado - :quantidade WHERE s.id = :id")
+    int consumirReserva(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Entrega sem reserva ativa: só do saldo que não está reservado para outras solicitações
+    @Modifying
+    @Query("UPDATE Semente s SET s.estoqueDisponivel = s.estoqueDisponivel - :quantidade "
+            + "WHERE s.id = :id AND s.estoqueDisponivel - s.estoqueReservado >= :quantidade")
+    int baixarLivre(@Param("id") Long id, @Param("quantidade") int quantidade);
+}
@@ -1,13 +1,28 @@
 package com.ipa.backend.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ipa.backend.dto.SolicitacaoDto;
+import com.ipa.backend.dto.SolicitacaoRastreioDTO;
 import com.ipa.backend.model.Solicitacao;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface SolicitacaoRepository extends JpaRepository<Solicitacao, Long> {
 
@@ -23,4 +38,101 @@ public interface SolicitacaoRepository extends JpaRepository<Solicitacao, Long>
 
   // ✅ NOVO: Buscar por código de rastreio
   Optional<Solicitacao> findByCodigoRastreio(String codigoRastreio);
-}
\ No newline at end of file
+
+  // ===== PROJEÇÕES (leitura sem entidade gerenciada) =====
+
+  // s.solicitante.id / s.beneficiario.id leem a FK, sem JOIN
+  String SELECT_DTO = "SELECT new com.ipa.backend.dto.SolicitacaoDto("
+      + "s.id, s.solicitante.id, s.beneficiario.id, "
+      + "s.solicitanteNome, s.solicitanteCpf, s.solicitanteMatricula, s.solicitanteTelefone, s.localAtuacao, "
+      + "s.beneficiarioNome, s.beneficiarioCpf, s.beneficiarioCaf, s.tipoPropriedade, s.beneficiarioCep, "
+      + "s.beneficiarioComplemento, s.pontoReferencia, "
+      + "s.tipoInsumo, s.cultura, s.variedade, s.quantidade, s.unidadeMedida, s.areaPlantada, s.areaUnidade, "
+      + "s.dataIdealPlantio, s.finalidade, "
+      + "s.formaEntrega, s.municipioDestino, s.enderecoEntrega, s.cepEntrega, s.complementoEntrega, "
+      + "s.nomeDestinatario, s.telefoneDestinatario, "
+      + "s.status, s.dataCriacao, s.dataAtualizacao, s.pedidoId, s.codigoRastreio, s.observacoes) "
+      + "FROM Solicitacao s ";
+
+  String SELECT_RASTREIO = "SELECT new com.ipa.backend.dto.SolicitacaoRastreioDTO("
+      + "s.id, s.codigoRastreio, s.status, s.dataCriacao, s.dataAtualizacao, "
+      + "s.tipoInsumo, s.cultura, s.variedade, s.quantidade, s.unidadeMedida, "
+      + "s.beneficiarioNome, s.beneficiarioCpf, s.municipioDestino, s.solicitanteNome, s.localAtuacao, "
+      + "s.observacoes) "
+      + "FROM Solicitacao s ";
+
+  // ===== PAGINAÇÃO POR CHAVE (data_criacao, id), mais recentes primeiro =====
+
+  @Query(SELECT_DTO
+      + "WHERE s.dataCriacao < :data OR (s.dataCriacao = :data AND s.id < :id) "
+      + "ORDER BY s.dataCriacao DESC, s.id DESC")
+  List<SolicitacaoDto> paginaApos(@Param("data") LocalDateTime data, @Param("id") Long id, Pageable limite);
+
+  @Query(SELECT_DTO + "WHERE s.status = :status "
+      + "AND (s.dataCriacao < :data OR (s.dataCriacao = :data AND s.id < :id)) "
+      + "ORDER BY s.dataCriacao DESC, s.id DESC")
+  List<SolicitacaoDto> paginaPorStatusApos(@Param("status") String status, @Param("data") LocalDateTime data,
+      @Param("id") Long id, Pageable limite);
+
+  @Query(SELECT_DTO + "WHERE s.solicitanteCpf = :cpf "
+      + "AND (s.dataCriacao < :data OR (s.dataCriacao = :data AND s.id < :id)) "
+      + "ORDER BY s.dataCriacao DESC, s.id DESC")
+  List<SolicitacaoDto> paginaPorSolicitanteApos(@Param("cpf") String cpf, @Param("data") LocalDateTime data,
+      @Param("id") Long id, Pageable limite);
+
+  // ===== RASTREAMENTO =====
+
+  @Query(SELECT_RASTREIO + "WHERE s.codigoRastreio = :codigo")
+  Optional<SolicitacaoRastreioDTO> buscarRastreio(@Param("codigo") String codigo);
+
+  // Rastreamento em lote: um único IN por bloco de códigos
+  @Query(SELECT_RASTREIO + "WHERE s.codigoRastreio IN :codigos")
+  List<SolicitacaoRastreioDTO> buscarRastreios(@Param("codigos") Collection<String> codigos);
+
+  // ===== MUDANÇA DE STATUS EM LOTE =====
+
+  interface EstadoStatus {
+    Long getId();
+
+    String getCodigoRastreio();
+
+    String getStatus();
+
+    LocalDateTime getDataCriacao();
+
+    // Insumo, para a reserva de estoque
+    String getTipoInsumo();
+
+    String getCultura();
+
+    String getVariedade();
+
+    Integer getQuantidade();
+  }
+
+  @Query("SELECT s.id FROM Solicitacao s WHERE s.status = :status "
+      + "AND (:municipio IS NULL OR s.municipioDestino = :municipio) ORDER BY s.id")
+  List<Long> buscarIdsPorStatus(@Param("status") String status, @Param("municipio") String municipio,
+      Pageable limite);
+
+  // SELECT ... FOR UPDATE: as linhas ficam presas até o commit, então o UPDATE seguinte
+  // altera exatamente as que aqui estavam no status esperado
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT s.id AS id, s.codigoRastreio AS codigoRastreio, s.status AS status, s.dataCriacao AS dataCriacao, "
+      + "s.tipoInsumo AS tipoInsumo, s.cultura AS cultura, s.variedade AS variedade, s.quantidade AS quantidade "
+      + "FROM Solicitacao s WHERE s.id IN :ids")
+  List<EstadoStatus> bloquearEstados(@Param("ids") Collection<Long> ids);
+
+  // UPDATE direto, sem carregar entidades: @PreUpdate não roda, por isso dataAtualizacao vai explícita
+  @Modifying
+  @Query("UPDATE Solicitacao s SET s.status = :novo, s.dataAtualizacao = :agora "
+      + "WHERE s.id IN :ids AND s.status = :esperado")
+  int atualizarStatusEmLote(@Param("ids") Collection<Long> ids, @Param("esperado") String esperado,
+      @Param("novo") String novo, @Param("agora") LocalDateTime agora);
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648")
+  })
+  @Query(SELECT_DTO + "ORDER BY s.dataCriacao DESC, s.id DESC")
+  Stream<SolicitacaoDto> streamTodas();
+}
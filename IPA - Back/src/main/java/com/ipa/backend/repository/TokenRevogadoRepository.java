@@ -0,0 +1,22 @@
+package com.ipa.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ipa.backend.model.TokenRevogado;
+
+@Repository
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, String> {
+
+  List<TokenRevogado> findByExpiraEmAfter(LocalDateTime agora);
+
+  @Modifying
+  @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm < :agora")
+  int deletarExpirados(@Param("agora") LocalDateTime agora);
+}
@@ -2,8 +2,12 @@ package com.ipa.backend.repository;
 
 import com.ipa.backend.model.UsuarioIpa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,15 @@ public interface UsuarioIpaRepository extends JpaRepository<UsuarioIpa, Long> {
   boolean existsByCpf(String cpf);
 
   Optional<UsuarioIpa> findByEmail(String email);
+
+  // [id, tokenVersion] de todos os usuários (tabela de revogação em memória)
+  @Query("SELECT u.id, u.tokenVersion FROM UsuarioIpa u")
+  List<Object[]> findAllTokenVersions();
+
+  @Query("SELECT COALESCE(u.tokenVersion, 0) FROM UsuarioIpa u WHERE u.id = :id")
+  Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+  @Modifying
+  @Query("UPDATE UsuarioIpa u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.id = :id")
+  int incrementTokenVersion(@Param("id") Long id);
 }
\ No newline at end of file
@@ -3,18 +3,24 @@ package com.ipa.backend.service;
 import com.ipa.backend.dto.UsuarioIpaDTO;
 import com.ipa.backend.model.UsuarioIpa;
 import com.ipa.backend.repository.UsuarioIpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     @Autowired
     private UsuarioIpaRepository usuarioIpaRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     /**
      * Registrar novo usuário IPA
@@ -45,69 +51,60 @@ public class AuthService {
         usuario.setUf(usuarioDTO.getUf());
         
         // Criptografar senha
-        usuario.setSenha(passwordEncoder.encode(usuarioDTO.getSenha()));
+        usuario.setSenha(passwordHashingService.encode(usuarioDTO.getSenha()));
 
-        // Salvar no banco
-        return usuarioIpaRepository.save(usuario);
+        // Salvar no banco (descarta um possível cache negativo do CPF)
+        UsuarioIpa salvo = usuarioIpaRepository.save(usuario);
+        userDetailsService.invalidar(cpfLimpo);
+        return salvo;
     }
 
     /**
      * Autenticar usuário (login)
      */
     public UsuarioIpa autenticarUsuario(String cpf, String senha) {
-    // Limpar CPF
-    String cpfLimpo = cpf.replaceAll("[^0-9]", "");
-    
-    System.out.println("=================================");
-    System.out.println("🔐 AUTENTICAÇÃO");
-    System.out.println("📥 CPF recebido: [" + cpf + "]");
-    System.out.println("🧹 CPF limpo: [" + cpfLimpo + "]");
-    System.out.println("🔑 Senha recebida: [" + senha + "]");
-    System.out.println("=================================");
-    
-    // Buscar usuário por CPF
-    UsuarioIpa usuario = usuarioIpaRepository.findByCpf(cpfLimpo)
-            .orElseThrow(() -> {
-                System.out.println("❌ ERRO: Usuário não encontrado com CPF: [" + cpfLimpo + "]");
-                return new RuntimeException("CPF ou senha incorretos");
-            });
-
-    System.out.println("✅ Usuário encontrado!");
-    System.out.println("👤 Nome: " + usuario.getNome());
-    System.out.println("📧 Email: " + usuario.getEmail());
-    System.out.println("🔑 Senha no banco: [" + usuario.getSenha() + "]"); // ✅ Mostrar senha completa
-    System.out.println("🔑 Tamanho da senha no banco: " + usuario.getSenha().length() + " chars");
-
-    // Verificar se a senha está criptografada
-    boolean isSenhaCriptografada = usuario.getSenha().startsWith("$2a$") || usuario.getSenha().startsWith("$2b$");
-    System.out.println("🔒 Senha está criptografada com BCrypt? " + isSenhaCriptografada);
-
-    // Verificar senha
-    if (isSenhaCriptografada) {
-        System.out.println("🔒 Verificando com BCrypt...");
-        boolean senhaCorreta = passwordEncoder.matches(senha, usuario.getSenha());
-        System.out.println("🔒 Resultado: " + (senhaCorreta ? "✅ SENHA CORRETA" : "❌ SENHA INCORRETA"));
-        
+        // Limpar CPF
+        String cpfLimpo = cpf.replaceAll("[^0-9]", "");
+        log.debug("Autenticando CPF {}", mascararCpf(cpfLimpo));
+
+        // Buscar usuário por CPF
+        UsuarioIpa usuario = usuarioIpaRepository.findByCpf(cpfLimpo)
+                .orElseThrow(() -> {
+                    log.debug("Login recusado: CPF {} não encontrado", mascararCpf(cpfLimpo));
+                    return new RuntimeException("CPF ou senha incorretos");
+                });
+
+        // Verificar se a senha está criptografada
+        boolean isSenhaCriptografada = usuario.getSenha().startsWith("$2a$") || usuario.getSenha().startsWith("$2b$");
+
+        // Verificar senha
+        boolean senhaCorreta = isSenhaCriptografada
+                ? passwordHashingService.matches(senha, usuario.getSenha())
+                : usuario.getSenha().equals(senha); // Senha legada em texto plano
+
         if (!senhaCorreta) {
+            log.debug("Login recusado: senha incorreta para o CPF {}", mascararCpf(cpfLimpo));
             throw new RuntimeException("CPF ou senha incorretos");
         }
-    } else {
-        System.out.println("⚠️ Comparação direta (senha em texto plano)");
-        System.out.println("🔍 Senha banco: [" + usuario.getSenha() + "]");
-        System.out.println("🔍 Senha digitada: [" + senha + "]");
-        boolean senhaCorreta = usuario.getSenha().equals(senha);
-        System.out.println("🔍 Resultado: " + (senhaCorreta ? "✅ SENHA CORRETA" : "❌ SENHA INCORRETA"));
-        
-        if (!senhaCorreta) {
-            throw new RuntimeException("CPF ou senha incorretos");
+
+        // Rehash transparente: senha em texto plano ou BCrypt com custo diferente do configurado
+        if (passwordHashingService.precisaRehash(usuario.getSenha())) {
+            usuario.setSenha(passwordHashingService.encode(senha));
+            usuario = usuarioIpaRepository.save(usuario);
+            log.info("Senha do usuário {} refeita com o custo BCrypt atual", usuario.getId());
         }
-    }
 
-    System.out.println("✅ AUTENTICAÇÃO BEM-SUCEDIDA!");
-    System.out.println("=================================");
+        log.debug("Usuário {} autenticado", usuario.getId());
+        return usuario;
+    }
 
-    return usuario;
-}
+    // Mantém só os 4 últimos dígitos do CPF nos logs
+    static String mascararCpf(String cpfLimpo) {
+        if (cpfLimpo == null || cpfLimpo.length() <= 4) {
+            return "****";
+        }
+        return "*".repeat(cpfLimpo.length() - 4) + cpfLimpo.substring(cpfLimpo.length() - 4);
+    }
 
     /**
      * Buscar usuário por CPF
@@ -0,0 +1,163 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.cache.TtlCache;
+import com.ipa.backend.constants.TipoPropriedade;
+import com.ipa.backend.dto.SolicitacaoDto;
+import com.ipa.backend.model.Usuario;
+import com.ipa.backend.model.UsuarioIpa;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.function.Function;
+
+/**
+ * Resolve CPF -> id do solicitante (tb_usuarios_ipa) e do beneficiário (tb_usuarios) na criação
+ * de solicitações, criando o cadastro quando não existe.
+ *
+ * Cada resolução é um único INSERT ... ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id): se o CPF
+ * já existe, nada é alterado e o driver devolve o id existente como chave gerada; se não, a linha
+ * entra com um id do gerador da entidade. Dois cadastros simultâneos do mesmo CPF resolvem para a
+ * mesma linha em vez de falhar na constraint. Os ids resolvidos ficam em cache, então um CPF
+ * recorrente não custa nenhuma ida ao banco.
+ *
+ * Chamar dentro de uma transação: o INSERT usa a mesma conexão da solicitação.
+ */
+@Service
+public class CadastroPorCpfService {
+
+    private static final String UPSERT_SOLICITANTE =
+            "INSERT INTO tb_usuarios_ipa (id, nome, cpf, telefone, matricula_ipa, local_atuacao, senha, token_version) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, 0) ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
+    private static final String UPSERT_BENEFICIARIO =
+            "INSERT INTO tb_usuarios (id, nome, cpf, cep, cadastro_nacional, tipo_propriedade) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
+
+    @Value("${cadastro.cpf.cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${cadastro.cpf.cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TtlCache<String, Long> solicitantes;
+    private TtlCache<String, Long> beneficiarios;
+
+    @PostConstruct
+    void init() {
+        solicitantes = new TtlCache<>(maxSize);
+        solicitantes.registrarMetricas(meterRegistry, "cadastro.cpf.solicitante.cache");
+        beneficiarios = new TtlCache<>(maxSize);
+        beneficiarios.registrarMetricas(meterRegistry, "cadastro.cpf.beneficiario.cache");
+    }
+
+    public Long resolverSolicitante(SolicitacaoDto dto) {
+        String cpf = normalizarCpf(dto.getSolicitanteCpf());
+        Long id = solicitantes.get(cpf);
+        if (id != null) {
+            return id;
+        }
+
+        id = upsert(UPSERT_SOLICITANTE, UsuarioIpa.class, novoId -> new Object[] {
+                novoId, dto.getSolicitanteNome(), cpf, dto.getSolicitanteTelefone(), dto.getSolicitanteMatricula(),
+                dto.getLocalAtuacao(), "senha123" // Senha padrão - deve ser alterada
+        });
+        // O INSERT nativo não passa pelo UsuarioIpaCacheListener
+        userDetailsService.invalidar(cpf);
+        solicitantes.put(cpf, id, ttlMs);
+        return id;
+    }
+
+    public Long resolverBeneficiario(SolicitacaoDto dto) {
+        String cpf = dto.getBeneficiarioCpf();
+        Long id = beneficiarios.get(cpf);
+        if (id != null) {
+            return id;
+        }
+
+        TipoPropriedade tipoPropriedade;
+        try {
+            tipoPropriedade = TipoPropriedade.valueOf(dto.getTipoPropriedade());
+        } catch (Exception e) {
+            tipoPropriedade = TipoPropriedade.SITIO;
+        }
+        String tipo = tipoPropriedade.name();
+
+        id = upsert(UPSERT_BENEFICIARIO, Usuario.class, novoId -> new Object[] {
+                novoId, dto.getBeneficiarioNome(), cpf, dto.getBeneficiarioCep(), dto.getBeneficiarioCaf(), tipo
+        });
+        beneficiarios.put(cpf, id, ttlMs);
+        return id;
+    }
+
+    /**
+     * Descarta o id em cache de um CPF removido ou alterado (ver listeners das entidades).
+     */
+    public void invalidarSolicitante(String cpf) {
+        if (cpf != null) {
+            solicitantes.invalidateAfterCommit(normalizarCpf(cpf));
+        }
+    }
+
+    public void invalidarBeneficiario(String cpf) {
+        if (cpf != null) {
+            beneficiarios.invalidateAfterCommit(cpf);
+        }
+    }
+
+    // ===== AUXILIARES =====
+
+    private Long upsert(String sql, Class<?> entidade, Function<Long, Object[]> parametros) {
+        Long novoId = proximoId(entidade);
+        Object[] valores = parametros.apply(novoId);
+
+        KeyHolder chave = new GeneratedKeyHolder();
+        jdbcTemplate.update(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < valores.length; i++) {
+                ps.setObject(i + 1, valores[i]);
+            }
+            return ps;
+        }, chave);
+
+        // LAST_INSERT_ID(id) só é definido no caminho do duplicado; sem ele, a linha nova é a nossa
+        Number existente = chave.getKeyList().isEmpty() ? null : (Number) chave.getKeyList().get(0).values()
+                .stream().findFirst().orElse(null);
+        return existente != null && existente.longValue() != 0 ? existente.longValue() : novoId;
+    }
+
+    // Mesmo gerador (tb_id_sequencias, pooled-lo) que o persist da entidade usaria
+    private Long proximoId(Class<?> entidade) {
+        SharedSessionContractImplementor sessao = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator gerador = (BeforeExecutionGenerator) sessao.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entidade).getGenerator();
+        return (Long) gerador.generate(sessao, null, null, EventType.INSERT);
+    }
+
+    private static String normalizarCpf(String cpf) {
+        return cpf == null ? null : cpf.replaceAll("[^0-9]", "");
+    }
+}
@@ -0,0 +1,217 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.config.ReservaIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gera códigos de rastreio únicos no formato SAFRA-YYYY-XXXXXXXX para Pedido e Solicitacao.
+ *
+ * Cada código vem de um contador global (tb_sequencias), reservado em blocos para evitar
+ * uma ida ao banco por código (o primeiro na subida, os seguintes em segundo plano); o valor passa por uma permutação (Feistel com a chave secreta rastreio.chave)
+ * sobre o espaço de 36^8 e é escrito em base 36, então códigos consecutivos não são adivinháveis.
+ * Como a permutação é uma bijeção, valores distintos do contador nunca geram o mesmo código,
+ * inclusive entre várias instâncias e após reinícios (valores não usados de um bloco são descartados).
+ */
+@Service
+public class CodigoRastreioService {
+
+    static final String SEQUENCIA = "codigo_rastreio";
+
+    private static final int DIGITOS = 8;
+    private static final long ESPACO = 2_821_109_907_456L; // 36^8
+    private static final int MEIO_BITS = 21;               // Feistel sobre 42 bits (2^42 > 36^8)
+    private static final long MASCARA = (1L << MEIO_BITS) - 1;
+    private static final int RODADAS = 6;
+
+    @Autowired
+    private ReservaIds reservaIds;
+
+    @Value("${rastreio.bloco:100}")
+    private int tamanhoBloco;
+
+    // Obrigatória e própria do rastreio: sem ela a aplicação não sobe
+    @Value("${rastreio.chave}")
+    private String chave;
+
+    @Value("${jwt.secret:}")
+    private String segredoJwt;
+
+    @Value("${rastreio.bloco-espera-ms:5000}")
+    private long esperaMs;
+
+    private long[] chavesRodada;
+
+    // Reserva de blocos fora das threads de requisição, no pool próprio de ReservaIds: quem gera um
+    // código já segura uma conexão do pool principal e não pode depender de outra dele
+    private final ExecutorService reservador = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "rastreio-bloco");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Protegidos pelo monitor do serviço. Bloco corrente: [proximo, limite)
+    private long proximo;
+    private long limite;
+    private long[] seguinte;                       // próximo bloco já reservado: {inicio, limite}
+    private CompletableFuture<long[]> reservando;  // reserva em andamento
+
+    @PostConstruct
+    void init() {
+        if (chave == null || chave.isBlank()) {
+            throw new IllegalStateException("Propriedade rastreio.chave não configurada");
+        }
+        if (chave.equals(segredoJwt)) {
+            throw new IllegalStateException("rastreio.chave deve ser diferente de jwt.secret");
+        }
+        chavesRodada = new long[RODADAS];
+        for (int i = 0; i < RODADAS; i++) {
+            chavesRodada[i] = derivarChave(chave + ":" + i);
+        }
+
+        long[] bloco = reservarBloco();
+        proximo = bloco[0];
+        limite = bloco[1];
+    }
+
+    @PreDestroy
+    void encerrar() {
+        reservador.shutdownNow();
+    }
+
+    /**
+     * Gera o código no formato: SAFRA-2025-XXXXXXXX
+     */
+    public String gerar() {
+        long valor = proximoValor();
+        String sufixo = Long.toString(permutar(valor), 36).toUpperCase();
+
+        StringBuilder codigo = new StringBuilder("SAFRA-");
+        codigo.append(LocalDateTime.now().getYear()).append("-");
+        for (int i = sufixo.length(); i < DIGITOS; i++) {
+            codigo.append('0');
+        }
+        return codigo.append(sufixo).toString();
+    }
+
+    /**
+     * Consome o bloco corrente em memória. Na metade dele, o seguinte começa a ser reservado em
+     * segundo plano; só se os dois se esgotarem a thread espera, fora do monitor, pela reserva.
+     */
+    private long proximoValor() {
+        while (true) {
+            CompletableFuture<long[]> pendente;
+            synchronized (this) {
+                if (proximo >= limite && seguinte != null) {
+                    proximo = seguinte[0];
+                    limite = seguinte[1];
+                    seguinte = null;
+                }
+                if (proximo < limite) {
+                    long valor = proximo++;
+                    if (seguinte == null && reservando == null && limite - proximo <= tamanhoBloco / 2) {
+                        iniciarReserva();
+                    }
+                    return valor;
+                }
+                if (reservando == null) {
+                    iniciarReserva();
+                }
+                pendente = reservando;
+            }
+
+            try {
+                pendente.get(esperaMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new RuntimeException("Tempo esgotado ao reservar códigos de rastreio");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Falha ao reservar códigos de rastreio", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Reserva de códigos de rastreio interrompida", e);
+            }
+        }
+    }
+
+    // Chamar com o monitor
+    private void iniciarReserva() {
+        CompletableFuture<long[]> futuro = CompletableFuture.supplyAsync(this::reservarBloco, reservador);
+        reservando = futuro;
+        futuro.whenComplete((bloco, erro) -> {
+            synchronized (this) {
+                if (reservando == futuro) {
+                    reservando = null;
+                }
+                if (bloco != null) {
+                    seguinte = bloco;
+                }
+            }
+        });
+    }
+
+    /**
+     * Reserva um novo bloco numa transação própria (ReservaIds), para que o lock da linha
+     * não fique preso à transação de quem está criando o registro.
+     */
+    private long[] reservarBloco() {
+        long inicio = reservaIds.reservar("tb_sequencias", "nome", "proximo_valor", SEQUENCIA, 0L, tamanhoBloco);
+        if (inicio + tamanhoBloco > ESPACO) {
+            throw new RuntimeException("Espaço de códigos de rastreio esgotado");
+        }
+        return new long[] {inicio, inicio + tamanhoBloco};
+    }
+
+    /**
+     * Bijeção em [0, 36^8): rede de Feistel em 42 bits com cycle-walking.
+     */
+    long permutar(long valor) {
+        long x = valor;
+        do {
+            x = feistel(x);
+        } while (x >= ESPACO);
+        return x;
+    }
+
+    private long feistel(long x) {
+        long esquerda = x >>> MEIO_BITS;
+        long direita = x & MASCARA;
+        for (int i = 0; i < RODADAS; i++) {
+            long nova = esquerda ^ (misturar(direita ^ chavesRodada[i]) & MASCARA);
+            esquerda = direita;
+            direita = nova;
+        }
+        return (esquerda << MEIO_BITS) | direita;
+    }
+
+    // splitmix64
+    private static long misturar(long z) {
+        z += 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long derivarChave(String texto) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
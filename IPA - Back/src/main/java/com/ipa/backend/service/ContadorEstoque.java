@@ -0,0 +1,100 @@
+package com.ipa.backend.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Saldo de um item dividido em células (uma por núcleo, escolhida pela thread) e uma reserva central.
+ *
+ * A baixa comum é um CAS na própria célula, sem disputa com as outras threads. Só quando a célula
+ * não cobre a quantidade a thread entra no caminho lento (monitor do contador): tira da reserva,
+ * recarrega a célula e, se a reserva acabou, recolhe o que sobrou nas outras células antes de recusar.
+ * Toda unidade sai de exatamente um lugar, então a soma nunca fica negativa (não há venda acima do saldo).
+ */
+class ContadorEstoque {
+
+    // 8 longs = 64 bytes entre células, para que duas células não dividam a mesma linha de cache
+    private static final int ESPACAMENTO = 8;
+
+    private final AtomicLongArray celulas;
+    private final int mascara;
+    private final long recarga;
+
+    // Protegida pelo monitor do contador
+    private long reserva;
+
+    ContadorEstoque(long saldoInicial, int numCelulas, long recarga) {
+        int n = 1;
+        while (n < numCelulas) {
+            n <<= 1;
+        }
+        this.celulas = new AtomicLongArray(n * ESPACAMENTO);
+        this.mascara = n - 1;
+        this.recarga = recarga;
+        this.reserva = Math.max(0, saldoInicial);
+    }
+
+    boolean baixar(long quantidade) {
+        int indice = indiceDaThread();
+
+        // Caminho rápido: só a célula desta thread
+        long atual;
+        while ((atual = celulas.get(indice)) >= quantidade) {
+            if (celulas.compareAndSet(indice, atual, atual - quantidade)) {
+                return true;
+            }
+        }
+
+        synchronized (this) {
+            if (reserva < quantidade) {
+                recolherCelulas();
+                if (reserva < quantidade) {
+                    return false;
+                }
+            }
+            reserva -= quantidade;
+
+            long extra = Math.min(reserva, recarga);
+            reserva -= extra;
+            celulas.addAndGet(indice, extra);
+            return true;
+        }
+    }
+
+    synchronized void adicionar(long quantidade) {
+        reserva += quantidade;
+    }
+
+    /**
+     * Troca o saldo inteiro e devolve a diferença aplicada (novo - saldo anterior).
+     */
+    synchronized long definir(long novoSaldo) {
+        recolherCelulas();
+        long diferenca = novoSaldo - reserva;
+        reserva = novoSaldo;
+        return diferenca;
+    }
+
+    /**
+     * Saldo aproximado enquanto há baixas em andamento; exato com o contador parado.
+     */
+    synchronized long disponivel() {
+        long total = reserva;
+        for (int i = 0; i <= mascara; i++) {
+            total += celulas.get(i * ESPACAMENTO);
+        }
+        return total;
+    }
+
+    // Chamar com o monitor: getAndSet garante que cada unidade é recolhida ou baixada, nunca as duas
+    private void recolherCelulas() {
+        for (int i = 0; i <= mascara; i++) {
+            reserva += celulas.getAndSet(i * ESPACAMENTO, 0);
+        }
+    }
+
+    private int indiceDaThread() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & mascara) * ESPACAMENTO;
+    }
+}
@@ -1,8 +1,13 @@
 package com.ipa.backend.service;
 
+import com.ipa.backend.cache.TtlCache;
 import com.ipa.backend.model.UsuarioIpa;
 import com.ipa.backend.repository.UsuarioIpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,6 +15,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Optional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -17,24 +23,73 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UsuarioIpaRepository usuarioIpaRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${auth.user-cache.ttl-ms:600000}") // 10 minutos
+    private long ttlMs;
+
+    // CPFs desconhecidos ficam pouco tempo em cache para não martelar tb_usuarios_ipa com tokens inválidos
+    @Value("${auth.user-cache.negative-ttl-ms:30000}")
+    private long negativeTtlMs;
+
+    // Optional.empty() representa um CPF sabidamente inexistente (cache negativo)
+    private TtlCache<String, Optional<UserDetails>> cache;
+
+    private Timer loadTimer;
+
+    @PostConstruct
+    void init() {
+        cache = new TtlCache<>(maxSize);
+        cache.registrarMetricas(meterRegistry, "auth.user.cache");
+        loadTimer = Timer.builder("auth.user.cache.load").register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String cpf) throws UsernameNotFoundException {
         // Limpar CPF
-        String cpfLimpo = cpf.replaceAll("[^0-9]", "");
-        System.out.println("🔍 CustomUserDetailsService - Buscando CPF: " + cpfLimpo);
-        
-        UsuarioIpa usuario = usuarioIpaRepository.findByCpf(cpfLimpo)
-                .orElseThrow(() -> {
-                    System.out.println("❌ Usuário não encontrado: " + cpfLimpo);
-                    return new UsernameNotFoundException("Usuário não encontrado: " + cpf);
-                });
-
-        System.out.println("✅ Usuário carregado: " + usuario.getNome());
-
-        return new User(
-                usuario.getCpf(),
-                usuario.getSenha(),
-                new ArrayList<>() // Authorities vazias
-        );
+        String cpfLimpo = normalizarCpf(cpf);
+
+        Optional<UserDetails> emCache = cache.get(cpfLimpo);
+        if (emCache == null) {
+            emCache = loadTimer.record(() -> carregar(cpfLimpo));
+            cache.put(cpfLimpo, emCache, emCache.isPresent() ? ttlMs : negativeTtlMs);
+        }
+
+        return emCache.orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + cpf));
+    }
+
+    /**
+     * Remove o CPF do cache agora e novamente após o commit da transação corrente,
+     * para que uma leitura concorrente não recoloque o valor antigo.
+     */
+    public void invalidar(String cpf) {
+        if (cpf == null) {
+            return;
+        }
+        cache.invalidateAfterCommit(normalizarCpf(cpf));
+    }
+
+    private Optional<UserDetails> carregar(String cpfLimpo) {
+        return usuarioIpaRepository.findByCpf(cpfLimpo)
+                .map(usuario -> new User(
+                        usuario.getCpf(),
+                        usuario.getSenha(),
+                        new ArrayList<>() // Authorities vazias
+                ));
+    }
+
+    private static String normalizarCpf(String cpf) {
+        StringBuilder digitos = new StringBuilder(11);
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
     }
-}
\ No newline at end of file
+}
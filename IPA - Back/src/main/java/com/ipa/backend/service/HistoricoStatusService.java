@@ -0,0 +1,275 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.dto.HistoricoStatusDTO;
+import com.ipa.backend.dto.LeadTimeEtapaDTO;
+import com.ipa.backend.model.HistoricoStatus;
+import com.ipa.backend.repository.HistoricoStatusRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Diário de mudanças de status (tb_historico_status).
+ *
+ * As transições ficam num buffer da transação corrente e são gravadas num único batch JDBC
+ * no beforeCommit: entram no banco junto com a mudança de status ou não entram.
+ */
+@Service
+public class HistoricoStatusService {
+
+    public static final String SOLICITACAO = "SOLICITACAO";
+    public static final String PEDIDO = "PEDIDO";
+
+    /**
+     * Uma transição para registrarLote; inicioRegistro tem o mesmo papel que em registrar.
+     */
+    public record Transicao(Long registroId, String codigoRastreio, String statusAnterior, String statusNovo,
+                            LocalDateTime inicioRegistro) {}
+
+    private static final String INSERT = "INSERT INTO tb_historico_status "
+            + "(tipo, registro_id, codigo_rastreio, status_anterior, status_novo, data_transicao, duracao_ms) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LEAD_TIME = "SELECT status_anterior, duracao_ms FROM tb_historico_status "
+            + "WHERE tipo = ? AND data_transicao >= ? AND data_transicao < ? "
+            + "AND status_anterior IS NOT NULL AND duracao_ms IS NOT NULL";
+
+    // Chave do buffer nos recursos da transação
+    private static final Object BUFFER = new Object();
+
+    @Autowired
+    private HistoricoStatusRepository historicoStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${historico.lead-time.max-dias:366}")
+    private int maxDias;
+
+    // Lê o resultado em streaming (driver MySQL), sem carregar milhões de linhas de uma vez
+    private JdbcTemplate streaming;
+
+    @PostConstruct
+    void init() {
+        streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Registra a transição se o status mudou. inicioRegistro é usado como início da primeira
+     * etapa quando ainda não há histórico (data de criação do registro).
+     */
+    public void registrar(String tipo, Long registroId, String codigoRastreio,
+                          String statusAnterior, String statusNovo, LocalDateTime inicioRegistro) {
+        if (statusNovo == null || Objects.equals(statusAnterior, statusNovo)) {
+            return;
+        }
+
+        List<HistoricoStatus> buffer = bufferDaTransacao();
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime inicioEtapa = ultimaNoBuffer(buffer, tipo, registroId);
+        if (inicioEtapa == null) {
+            inicioEtapa = historicoStatusRepository.findFirstByTipoAndRegistroIdOrderByDataTransicaoDesc(tipo, registroId)
+                    .map(HistoricoStatus::getDataTransicao)
+                    .orElse(inicioRegistro);
+        }
+
+        adicionar(buffer, List.of(novoHistorico(tipo, registroId, codigoRastreio, statusAnterior, statusNovo,
+                inicioEtapa, agora)));
+    }
+
+    /**
+     * Equivalente a registrar para várias transições (ex.: UPDATE em massa): o início da etapa
+     * atual de todos os registros vem de uma única consulta, em vez de uma por registro.
+     */
+    public void registrarLote(String tipo, List<Transicao> transicoes) {
+        List<Transicao> mudancas = transicoes.stream()
+                .filter(t -> t.statusNovo() != null && !Objects.equals(t.statusAnterior(), t.statusNovo()))
+                .collect(Collectors.toList());
+        if (mudancas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, LocalDateTime> ultimas = new HashMap<>();
+        List<Long> ids = mudancas.stream().map(Transicao::registroId).collect(Collectors.toList());
+        for (Object[] linha : historicoStatusRepository.ultimasTransicoes(tipo, ids)) {
+            ultimas.put((Long) linha[0], (LocalDateTime) linha[1]);
+        }
+
+        List<HistoricoStatus> buffer = bufferDaTransacao();
+        LocalDateTime agora = LocalDateTime.now();
+        List<HistoricoStatus> novos = new ArrayList<>(mudancas.size());
+        for (Transicao t : mudancas) {
+            LocalDateTime inicioEtapa = ultimaNoBuffer(buffer, tipo, t.registroId());
+            if (inicioEtapa == null) {
+                inicioEtapa = ultimas.getOrDefault(t.registroId(), t.inicioRegistro());
+            }
+            novos.add(novoHistorico(tipo, t.registroId(), t.codigoRastreio(), t.statusAnterior(), t.statusNovo(),
+                    inicioEtapa, agora));
+        }
+        adicionar(buffer, novos);
+    }
+
+    public List<HistoricoStatusDTO> linhaDoTempo(String tipo, Long registroId) {
+        return historicoStatusRepository.findByTipoAndRegistroIdOrderByDataTransicaoAsc(tipo, registroId)
+                .stream()
+                .map(h -> new HistoricoStatusDTO(h.getStatusAnterior(), h.getStatusNovo(), h.getDataTransicao(), h.getDuracaoMs()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Percentis do tempo de permanência por etapa para transições em [de, ate].
+     */
+    public List<LeadTimeEtapaDTO> leadTime(String tipo, LocalDate de, LocalDate ate) {
+        if (de.isAfter(ate)) {
+            throw new RuntimeException("Data inicial posterior à data final");
+        }
+        if (ChronoUnit.DAYS.between(de, ate) > maxDias) {
+            throw new RuntimeException("Período máximo de " + maxDias + " dias");
+        }
+
+        Map<String, Duracoes> porEtapa = new TreeMap<>();
+        streaming.query(LEAD_TIME,
+                rs -> {
+                    porEtapa.computeIfAbsent(rs.getString(1), k -> new Duracoes()).add(rs.getLong(2));
+                },
+                tipo, Timestamp.valueOf(de.atStartOfDay()), Timestamp.valueOf(ate.plusDays(1).atStartOfDay()));
+
+        List<LeadTimeEtapaDTO> resultado = new ArrayList<>();
+        porEtapa.forEach((etapa, duracoes) -> resultado.add(duracoes.resumo(etapa)));
+        return resultado;
+    }
+
+    // ===== BUFFER DA TRANSAÇÃO =====
+
+    @SuppressWarnings("unchecked")
+    private List<HistoricoStatus> bufferDaTransacao() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        List<HistoricoStatus> buffer = (List<HistoricoStatus>) TransactionSynchronizationManager.getResource(BUFFER);
+        if (buffer == null) {
+            List<HistoricoStatus> novo = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(BUFFER, novo);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    gravar(novo);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BUFFER);
+                }
+            });
+            buffer = novo;
+        }
+        return buffer;
+    }
+
+    // Transição anterior ainda não gravada, na mesma transação
+    private static LocalDateTime ultimaNoBuffer(List<HistoricoStatus> buffer, String tipo, Long registroId) {
+        if (buffer != null) {
+            for (int i = buffer.size() - 1; i >= 0; i--) {
+                HistoricoStatus h = buffer.get(i);
+                if (h.getTipo().equals(tipo) && h.getRegistroId().equals(registroId)) {
+                    return h.getDataTransicao();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static HistoricoStatus novoHistorico(String tipo, Long registroId, String codigoRastreio,
+                                                 String statusAnterior, String statusNovo,
+                                                 LocalDateTime inicioEtapa, LocalDateTime agora) {
+        HistoricoStatus historico = new HistoricoStatus();
+        historico.setTipo(tipo);
+        historico.setRegistroId(registroId);
+        historico.setCodigoRastreio(codigoRastreio);
+        historico.setStatusAnterior(statusAnterior);
+        historico.setStatusNovo(statusNovo);
+        historico.setDataTransicao(agora);
+        historico.setDuracaoMs(inicioEtapa != null ? Duration.between(inicioEtapa, agora).toMillis() : null);
+        return historico;
+    }
+
+    private void adicionar(List<HistoricoStatus> buffer, List<HistoricoStatus> historicos) {
+        if (buffer != null) {
+            buffer.addAll(historicos);
+        } else {
+            gravar(historicos);
+        }
+    }
+
+    private void gravar(List<HistoricoStatus> historicos) {
+        if (historicos.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, historicos, historicos.size(), (ps, h) -> {
+            ps.setString(1, h.getTipo());
+            ps.setLong(2, h.getRegistroId());
+            ps.setString(3, h.getCodigoRastreio());
+            ps.setString(4, h.getStatusAnterior());
+            ps.setString(5, h.getStatusNovo());
+            ps.setTimestamp(6, Timestamp.valueOf(h.getDataTransicao()));
+            if (h.getDuracaoMs() != null) {
+                ps.setLong(7, h.getDuracaoMs());
+            } else {
+                ps.setNull(7, Types.BIGINT);
+            }
+        });
+    }
+
+    /**
+     * Lista de long sem boxing, para ordenar e tirar os percentis.
+     */
+    private static final class Duracoes {
+
+        private long[] valores = new long[64];
+        private int tamanho;
+
+        void add(long valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        LeadTimeEtapaDTO resumo(String etapa) {
+            Arrays.sort(valores, 0, tamanho);
+            long soma = 0;
+            for (int i = 0; i < tamanho; i++) {
+                soma += valores[i];
+            }
+            return new LeadTimeEtapaDTO(etapa, tamanho, soma / tamanho,
+                    percentil(50), percentil(90), percentil(95), percentil(99), valores[tamanho - 1]);
+        }
+
+        // Nearest-rank
+        private long percentil(int p) {
+            int indice = (int) Math.ceil(p / 100.0 * tamanho) - 1;
+            return valores[Math.max(0, indice)];
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.cache.TtlCache;
+import com.ipa.backend.exception.ChaveIdempotenciaException;
+import com.ipa.backend.model.ChaveIdempotencia;
+import com.ipa.backend.repository.ChaveIdempotenciaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Respostas de criações feitas com Idempotency-Key, para que a repetição de um envio devolva
+ * o resultado do primeiro em vez de criar outro registro.
+ *
+ * Duas camadas: um TtlCache limitado na frente e tb_idempotencia como fonte durável, compartilhada
+ * entre instâncias. Duplicatas simultâneas na mesma instância esperam o futuro da primeira; entre
+ * instâncias, a linha EM_ANDAMENTO (INSERT IGNORE) decide quem executa e os demais consultam o banco.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    static final String EM_ANDAMENTO = "EM_ANDAMENTO";
+    static final String CONCLUIDA = "CONCLUIDA";
+
+    public record RespostaGuardada(String hashRequisicao, int status, String contentType, byte[] corpo) {
+    }
+
+    @Value("${idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${idempotencia.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${idempotencia.espera-ms:30000}")
+    private long esperaMs;
+
+    // Prazo da linha EM_ANDAMENTO: passado dele, a chave de uma requisição que não terminou é liberada
+    @Value("${idempotencia.em-andamento-ms:120000}")
+    private long emAndamentoMs;
+
+    @Value("${idempotencia.consulta-ms:200}")
+    private long consultaMs;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transacao;
+    private TtlCache<String, RespostaGuardada> respostas;
+    // Chave -> resultado da requisição em execução nesta instância (null = abandonada, tentar de novo)
+    private final Map<String, CompletableFuture<RespostaGuardada>> emExecucao = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        transacao = new TransactionTemplate(transactionManager);
+        respostas = new TtlCache<>(maxSize);
+        respostas.registrarMetricas(meterRegistry, "idempotencia.cache");
+    }
+
+    /**
+     * Devolve a resposta guardada para a chave, esperando se a primeira requisição ainda roda,
+     * ou null se a chave passou a ser desta requisição: nesse caso o chamador executa e depois
+     * chama concluir ou abandonar.
+     */
+    public RespostaGuardada iniciar(String chave, String hashRequisicao) {
+        long limite = System.currentTimeMillis() + esperaMs;
+        while (true) {
+            RespostaGuardada guardada = respostas.get(chave);
+            if (guardada != null) {
+                return conferir(guardada, hashRequisicao);
+            }
+
+            CompletableFuture<RespostaGuardada> meu = new CompletableFuture<>();
+            CompletableFuture<RespostaGuardada> outro = emExecucao.putIfAbsent(chave, meu);
+            if (outro != null) {
+                RespostaGuardada resultado = esperar(outro, limite);
+                if (resultado != null) {
+                    return conferir(resultado, hashRequisicao);
+                }
+                continue; // a primeira falhou sem resposta: esta tenta assumir a chave
+            }
+
+            try {
+                RespostaGuardada doBanco = reservarNoBanco(chave, hashRequisicao, limite);
+                if (doBanco != null) {
+                    respostas.put(chave, doBanco, TimeUnit.HOURS.toMillis(ttlHoras));
+                    emExecucao.remove(chave, meu);
+                    meu.complete(doBanco);
+                    return conferir(doBanco, hashRequisicao);
+                }
+                return null;
+            } catch (RuntimeException e) {
+                emExecucao.remove(chave, meu);
+                meu.complete(null);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Guarda a resposta da requisição que executou e libera quem esperava por ela.
+     */
+    public void concluir(String chave, RespostaGuardada resposta) {
+        LocalDateTime expiraEm = LocalDateTime.now().plusHours(ttlHoras);
+        try {
+            transacao.executeWithoutResult(status -> chaveIdempotenciaRepository.concluir(chave, resposta.status(),
+                    resposta.contentType(), resposta.corpo(), expiraEm));
+        } catch (RuntimeException e) {
+            // A criação já foi confirmada: as repetições nesta instância ainda são atendidas pela memória
+            log.error("Falha ao gravar resposta idempotente", e);
+        }
+        respostas.put(chave, resposta, TimeUnit.HOURS.toMillis(ttlHoras));
+        CompletableFuture<RespostaGuardada> futuro = emExecucao.remove(chave);
+        if (futuro != null) {
+            futuro.complete(resposta);
+        }
+    }
+
+    /**
+     * Libera a chave de uma requisição que falhou sem resposta reaproveitável (erro 5xx, exceção):
+     * a próxima repetição executa de novo.
+     */
+    public void abandonar(String chave) {
+        try {
+            transacao.executeWithoutResult(status -> chaveIdempotenciaRepository.abandonar(chave));
+        } catch (RuntimeException e) {
+            // A linha vence em idempotencia.em-andamento-ms
+            log.warn("Falha ao liberar chave idempotente", e);
+        }
+        CompletableFuture<RespostaGuardada> futuro = emExecucao.remove(chave);
+        if (futuro != null) {
+            futuro.complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.limpeza-ms:600000}")
+    public void limparExpiradas() {
+        Integer removidas = transacao.execute(status ->
+                chaveIdempotenciaRepository.deletarExpiradas(LocalDateTime.now()));
+        if (removidas != null && removidas > 0) {
+            log.debug("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+
+    // ===== AUXILIARES =====
+
+    private RespostaGuardada reservarNoBanco(String chave, String hashRequisicao, long limite) {
+        while (true) {
+            LocalDateTime agora = LocalDateTime.now();
+            LocalDateTime expiraEm = agora.plusNanos(TimeUnit.MILLISECONDS.toNanos(emAndamentoMs));
+            boolean reservada = transacao.execute(status ->
+                    chaveIdempotenciaRepository.reservar(chave, hashRequisicao, agora, expiraEm) == 1
+                            || chaveIdempotenciaRepository.reservarVencida(chave, hashRequisicao, agora, expiraEm) == 1);
+            if (reservada) {
+                return null;
+            }
+
+            Optional<ChaveIdempotencia> linha = chaveIdempotenciaRepository.findById(chave);
+            if (linha.isPresent()) {
+                ChaveIdempotencia registro = linha.get();
+                if (CONCLUIDA.equals(registro.getStatus())) {
+                    return new RespostaGuardada(registro.getHashRequisicao(), registro.getHttpStatus(),
+                            registro.getContentType(), registro.getCorpo());
+                }
+                if (!registro.getHashRequisicao().equals(hashRequisicao)) {
+                    throw chaveReutilizada();
+                }
+            }
+
+            // EM_ANDAMENTO em outra instância (ou apagada entre as consultas): consulta de novo
+            if (System.currentTimeMillis() >= limite) {
+                throw emAndamento();
+            }
+            try {
+                Thread.sleep(consultaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw emAndamento();
+            }
+        }
+    }
+
+    private RespostaGuardada esperar(CompletableFuture<RespostaGuardada> futuro, long limite) {
+        try {
+            return futuro.get(Math.max(0, limite - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw emAndamento();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw emAndamento();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static RespostaGuardada conferir(RespostaGuardada guardada, String hashRequisicao) {
+        if (!guardada.hashRequisicao().equals(hashRequisicao)) {
+            throw chaveReutilizada();
+        }
+        return guardada;
+    }
+
+    private static ChaveIdempotenciaException chaveReutilizada() {
+        return new ChaveIdempotenciaException("Idempotency-Key já usada com outro conteúdo", 422);
+    }
+
+    private static ChaveIdempotenciaException emAndamento() {
+        return new ChaveIdempotenciaException(
+                "Requisição com esta Idempotency-Key ainda em processamento. Tente novamente em instantes.", 409);
+    }
+}
@@ -0,0 +1,295 @@
+package com.ipa.backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Diário local de movimentações de estoque, só de acréscimo, em segmentos ledger-&lt;primeiroSeq&gt;.log
+ * (uma linha "seq;tipo;id;delta" por lançamento).
+ *
+ * Uma única thread escreve: junta os lançamentos que chegaram enquanto o fsync anterior rodava,
+ * grava e faz um fsync só para o grupo (group commit). O chamador só é liberado depois disso.
+ * Lançamentos já duráveis ficam numa fila até serem aplicados no banco; segmentos inteiramente
+ * aplicados são apagados.
+ */
+class LedgerEstoque {
+
+    record Lancamento(long seq, char tipo, long itemId, long delta) {}
+
+    private record Pendente(char tipo, long itemId, long delta, CompletableFuture<Long> pronto) {}
+
+    private static final String PREFIXO = "ledger-";
+    private static final String SUFIXO = ".log";
+    private static final int MAX_GRUPO = 1024;
+
+    private final Path diretorio;
+    private final long bytesPorSegmento;
+    private final boolean fsync;
+    private final long timeoutMs;
+
+    private final BlockingQueue<Pendente> fila = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Lancamento> duraveis = new ConcurrentLinkedQueue<>();
+    // primeiro seq -> arquivo; protegido por synchronized(segmentos)
+    private final TreeMap<Long, Path> segmentos = new TreeMap<>();
+
+    private final Thread escritor;
+    private volatile boolean ativo = true;
+    private volatile IOException falha;
+
+    // Usados só pela thread escritora (e por abrir, antes de ela começar)
+    private FileChannel canal;
+    private long tamanhoSegmento;
+    private long seq;
+
+    private LedgerEstoque(Path diretorio, long bytesPorSegmento, boolean fsync, long timeoutMs) {
+        this.diretorio = diretorio;
+        this.bytesPorSegmento = bytesPorSegmento;
+        this.fsync = fsync;
+        this.timeoutMs = timeoutMs;
+        this.escritor = new Thread(this::escrever, "estoque-ledger");
+        this.escritor.setDaemon(true);
+    }
+
+    /**
+     * Abre o diário e coloca na fila de aplicação tudo o que foi gravado depois de ultimoSeqAplicado
+     * (recuperação após uma queda). Uma última linha incompleta, de uma escrita interrompida, é descartada.
+     */
+    static LedgerEstoque abrir(Path diretorio, long bytesPorSegmento, boolean fsync, long timeoutMs,
+                               long ultimoSeqAplicado) throws IOException {
+        Files.createDirectories(diretorio);
+        LedgerEstoque ledger = new LedgerEstoque(diretorio, bytesPorSegmento, fsync, timeoutMs);
+        ledger.seq = ultimoSeqAplicado;
+
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.filter(LedgerEstoque::ehSegmento)
+                    .forEach(arquivo -> ledger.segmentos.put(primeiroSeq(arquivo), arquivo));
+        }
+        for (Path arquivo : ledger.segmentos.values()) {
+            ledger.recuperar(arquivo, ultimoSeqAplicado);
+        }
+
+        ledger.novoSegmento();
+        ledger.escritor.start();
+        return ledger;
+    }
+
+    /**
+     * Grava o lançamento e espera o fsync do grupo. Retorna o seq atribuído.
+     */
+    long registrar(char tipo, long itemId, long delta) {
+        if (falha != null || !ativo) {
+            throw new RuntimeException("Diário de estoque indisponível", falha);
+        }
+
+        CompletableFuture<Long> pronto = new CompletableFuture<>();
+        fila.add(new Pendente(tipo, itemId, delta, pronto));
+        try {
+            return pronto.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Gravação do diário de estoque interrompida", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Falha ao gravar o diário de estoque", e);
+        } catch (TimeoutException e) {
+            // O lançamento ainda pode chegar ao disco: sem saber, o saldo em memória deixa de ser confiável.
+            // Para tudo; na próxima subida a recuperação parte do banco + diário.
+            falha = new IOException("Diário de estoque sem resposta em " + timeoutMs + " ms");
+            throw new RuntimeException("Falha ao gravar o diário de estoque", e);
+        }
+    }
+
+    /**
+     * Próximos lançamentos duráveis ainda não aplicados no banco, na ordem de seq.
+     * Só são removidos da fila por confirmarAplicados.
+     */
+    List<Lancamento> pendentes(int max) {
+        List<Lancamento> lote = new ArrayList<>();
+        for (Lancamento lancamento : duraveis) {
+            if (lote.size() >= max) {
+                break;
+            }
+            lote.add(lancamento);
+        }
+        return lote;
+    }
+
+    /**
+     * Retira da fila os lançamentos até seqAplicado e apaga os segmentos que ficaram sem nada a aplicar.
+     */
+    void confirmarAplicados(long seqAplicado) {
+        Lancamento primeiro;
+        while ((primeiro = duraveis.peek()) != null && primeiro.seq() <= seqAplicado) {
+            duraveis.poll();
+        }
+
+        synchronized (segmentos) {
+            // Um segmento pode sair se o seguinte começa depois de seqAplicado + 1; o atual nunca sai
+            List<Map.Entry<Long, Path>> lista = new ArrayList<>(segmentos.entrySet());
+            for (int i = 0; i < lista.size() - 1; i++) {
+                if (lista.get(i + 1).getKey() - 1 > seqAplicado) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(lista.get(i).getValue());
+                    segmentos.remove(lista.get(i).getKey());
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Para de aceitar lançamentos, grava o que estiver na fila e fecha o arquivo.
+     */
+    void fechar() throws InterruptedException {
+        ativo = false;
+        escritor.join(timeoutMs);
+    }
+
+    // ===== THREAD ESCRITORA =====
+
+    private void escrever() {
+        List<Pendente> grupo = new ArrayList<>(MAX_GRUPO);
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                grupo.add(primeiro);
+                fila.drainTo(grupo, MAX_GRUPO - 1);
+                gravarGrupo(grupo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                grupo.clear();
+            }
+        }
+
+        try {
+            canal.close();
+        } catch (IOException ignored) {
+            // Tudo o que foi confirmado já passou por fsync
+        }
+    }
+
+    private void gravarGrupo(List<Pendente> grupo) {
+        if (falha != null) {
+            grupo.forEach(p -> p.pronto().completeExceptionally(falha));
+            return;
+        }
+
+        try {
+            if (tamanhoSegmento >= bytesPorSegmento) {
+                canal.close();
+                novoSegmento();
+            }
+
+            List<Lancamento> lancamentos = new ArrayList<>(grupo.size());
+            StringBuilder linhas = new StringBuilder(grupo.size() * 32);
+            long proximo = seq;
+            for (Pendente p : grupo) {
+                Lancamento lancamento = new Lancamento(++proximo, p.tipo(), p.itemId(), p.delta());
+                lancamentos.add(lancamento);
+                linhas.append(lancamento.seq()).append(';').append(lancamento.tipo()).append(';')
+                        .append(lancamento.itemId()).append(';').append(lancamento.delta()).append('\n');
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(linhas.toString().getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                tamanhoSegmento += canal.write(buffer);
+            }
+            if (fsync) {
+                canal.force(false);
+            }
+
+            seq = proximo;
+            duraveis.addAll(lancamentos);
+            for (int i = 0; i < grupo.size(); i++) {
+                grupo.get(i).pronto().complete(lancamentos.get(i).seq());
+            }
+        } catch (IOException e) {
+            // Sem garantia do que chegou ao disco: recusa tudo daqui em diante
+            falha = e;
+            grupo.forEach(p -> p.pronto().completeExceptionally(e));
+        }
+    }
+
+    // ===== SEGMENTOS =====
+
+    private void novoSegmento() throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%s%020d%s", PREFIXO, seq + 1, SUFIXO));
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        tamanhoSegmento = canal.size();
+        synchronized (segmentos) {
+            segmentos.put(seq + 1, arquivo);
+        }
+    }
+
+    private void recuperar(Path arquivo, long ultimoSeqAplicado) throws IOException {
+        String conteudo = new String(Files.readAllBytes(arquivo), StandardCharsets.US_ASCII);
+        int bytesValidos = 0;
+        int fim;
+        // Só linhas terminadas em \n: um trecho final sem quebra é escrita interrompida
+        while ((fim = conteudo.indexOf('\n', bytesValidos)) >= 0) {
+            Lancamento lancamento = ler(conteudo.substring(bytesValidos, fim));
+            if (lancamento == null) {
+                break;
+            }
+            bytesValidos = fim + 1;
+            seq = Math.max(seq, lancamento.seq());
+            if (lancamento.seq() > ultimoSeqAplicado) {
+                duraveis.add(lancamento);
+            }
+        }
+
+        if (conteudo.length() > bytesValidos) {
+            try (FileChannel truncar = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                truncar.truncate(bytesValidos);
+            }
+        }
+    }
+
+    private static Lancamento ler(String linha) {
+        String[] campos = linha.split(";");
+        if (campos.length != 4 || campos[1].length() != 1) {
+            return null;
+        }
+        try {
+            return new Lancamento(Long.parseLong(campos[0]), campos[1].charAt(0),
+                    Long.parseLong(campos[2]), Long.parseLong(campos[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean ehSegmento(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO);
+    }
+
+    private static long primeiroSeq(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+}
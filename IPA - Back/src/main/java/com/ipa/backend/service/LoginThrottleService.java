@@ -0,0 +1,258 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.exception.MuitasTentativasException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limita tentativas de login por CPF e por endereço IP com token buckets em memória,
+ * com bloqueio progressivo (exponencial) após falhas seguidas.
+ * A verificação acontece antes de qualquer consulta ao banco ou BCrypt.
+ */
+@Service
+public class LoginThrottleService {
+
+    // Rajada permitida e reposição (tentativas por minuto) por CPF
+    @Value("${auth.throttle.cpf.capacity:5}")
+    private int cpfCapacity;
+
+    @Value("${auth.throttle.cpf.per-minute:5}")
+    private double cpfPerMinute;
+
+    // Por IP o limite é maior: vários agentes podem sair pelo mesmo NAT
+    @Value("${auth.throttle.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.throttle.ip.per-minute:60}")
+    private double ipPerMinute;
+
+    // Falhas toleradas por IP antes do bloqueio progressivo (NAT compartilhado)
+    @Value("${auth.throttle.ip.free-failures:10}")
+    private int ipFreeFailures;
+
+    @Value("${auth.throttle.backoff.base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${auth.throttle.backoff.max-ms:900000}") // 15 minutos
+    private long backoffMaxMs;
+
+    @Value("${auth.throttle.idle-ttl-ms:1800000}") // 30 minutos
+    private long idleTtlMs;
+
+    @Value("${auth.throttle.max-entries:100000}")
+    private int maxEntries;
+
+    // Bucket compartilhado pelas chaves novas quando o mapa está cheio só de chaves bloqueadas
+    @Value("${auth.throttle.overflow.capacity:60}")
+    private int overflowCapacity;
+
+    @Value("${auth.throttle.overflow.per-minute:300}")
+    private double overflowPerMinute;
+
+    private final Map<String, Bucket> cpfs = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> ips = new ConcurrentHashMap<>();
+
+    private Bucket transbordoCpf;
+    private Bucket transbordoIp;
+
+    @PostConstruct
+    void init() {
+        long agora = System.currentTimeMillis();
+        transbordoCpf = new Bucket(overflowCapacity, agora);
+        transbordoIp = new Bucket(overflowCapacity, agora);
+    }
+
+    /**
+     * Consome uma tentativa do CPF e do IP; lança MuitasTentativasException se algum estiver bloqueado.
+     */
+    public void verificar(String cpf, String ip) {
+        long agora = System.currentTimeMillis();
+
+        Bucket bucketIp = bucket(ips, transbordoIp, ip, ipCapacity, agora);
+        long esperaIp = bucketIp == transbordoIp
+                ? bucketIp.tentar(agora, overflowCapacity, overflowPerMinute)
+                : bucketIp.tentar(agora, ipCapacity, ipPerMinute);
+        if (esperaIp > 0) {
+            throw bloqueado(esperaIp);
+        }
+
+        Bucket bucketCpf = bucket(cpfs, transbordoCpf, normalizarCpf(cpf), cpfCapacity, agora);
+        long esperaCpf = bucketCpf == transbordoCpf
+                ? bucketCpf.tentar(agora, overflowCapacity, overflowPerMinute)
+                : bucketCpf.tentar(agora, cpfCapacity, cpfPerMinute);
+        if (esperaCpf > 0) {
+            throw bloqueado(esperaCpf);
+        }
+    }
+
+    public void registrarFalha(String cpf, String ip) {
+        long agora = System.currentTimeMillis();
+        // O transbordo só limita a taxa: falhas nele bloqueariam todas as chaves que o compartilham
+        Bucket bucketCpf = bucket(cpfs, transbordoCpf, normalizarCpf(cpf), cpfCapacity, agora);
+        if (bucketCpf != transbordoCpf) {
+            bucketCpf.falhou(agora, 0, backoffBaseMs, backoffMaxMs);
+        }
+        Bucket bucketIp = bucket(ips, transbordoIp, ip, ipCapacity, agora);
+        if (bucketIp != transbordoIp) {
+            bucketIp.falhou(agora, ipFreeFailures, backoffBaseMs, backoffMaxMs);
+        }
+    }
+
+    public void registrarSucesso(String cpf, String ip) {
+        Bucket bucketCpf = cpfs.get(normalizarCpf(cpf));
+        if (bucketCpf != null) {
+            bucketCpf.zerarFalhas();
+        }
+        Bucket bucketIp = ips.get(ip);
+        if (bucketIp != null) {
+            bucketIp.zerarFalhas();
+        }
+    }
+
+    /**
+     * Remove buckets ociosos e não bloqueados para manter a memória limitada.
+     */
+    @Scheduled(fixedDelayString = "${auth.throttle.cleanup-ms:60000}")
+    public void limpar() {
+        long agora = System.currentTimeMillis();
+        cpfs.values().removeIf(b -> b.ocioso(agora, idleTtlMs));
+        ips.values().removeIf(b -> b.ocioso(agora, idleTtlMs));
+    }
+
+    /**
+     * Bucket da chave, criado se preciso. Se o mapa está cheio só de buckets bloqueados,
+     * a chave nova cai no transbordo compartilhado em vez de ser recusada.
+     */
+    private Bucket bucket(Map<String, Bucket> mapa, Bucket transbordo, String chave, int capacidade, long agora) {
+        Bucket existente = mapa.get(chave);
+        if (existente != null) {
+            return existente;
+        }
+        if (mapa.size() >= maxEntries && !liberarEspaco(mapa, agora)) {
+            return transbordo;
+        }
+        return mapa.computeIfAbsent(chave, k -> new Bucket(capacidade, agora));
+    }
+
+    /**
+     * Despeja de uma vez até 10% do limite, para que a varredura não se repita a cada chave nova:
+     * primeiro os buckets sem falhas, depois os com falhas mas fora do bloqueio, sempre os acessados
+     * há mais tempo. Buckets bloqueados nunca saem, então inundar o mapa não solta um CPF sob bloqueio.
+     */
+    private boolean liberarEspaco(Map<String, Bucket> mapa, long agora) {
+        synchronized (mapa) {
+            if (mapa.size() < maxEntries) {
+                return true;
+            }
+            record Candidato(String chave, Bucket bucket, boolean comFalhas, long ultimoAcesso) {}
+            List<Candidato> candidatos = new ArrayList<>();
+            mapa.forEach((chave, b) -> {
+                Bucket.Despejo despejo = b.despejo(agora, idleTtlMs);
+                if (despejo != null) {
+                    candidatos.add(new Candidato(chave, b, despejo.comFalhas(), despejo.ultimoAcesso()));
+                }
+            });
+            candidatos.sort(Comparator.comparing(Candidato::comFalhas).thenComparingLong(Candidato::ultimoAcesso));
+            int remover = Math.max(1, maxEntries / 10);
+            for (int i = 0; i < candidatos.size() && i < remover; i++) {
+                mapa.remove(candidatos.get(i).chave(), candidatos.get(i).bucket());
+            }
+            return mapa.size() < maxEntries;
+        }
+    }
+
+    private MuitasTentativasException bloqueado(long esperaMs) {
+        long segundos = Math.max(1, (esperaMs + 999) / 1000);
+        return new MuitasTentativasException(
+                "Muitas tentativas de login. Tente novamente em " + segundos + " segundos.", segundos);
+    }
+
+    private static String normalizarCpf(String cpf) {
+        if (cpf == null) {
+            return "";
+        }
+        StringBuilder digitos = new StringBuilder(11);
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    /**
+     * Token bucket com bloqueio progressivo. O lock é por bucket (por chave), sem contenção global.
+     */
+    private static final class Bucket {
+
+        private double tokens;
+        private long ultimaReposicao;
+        private long ultimoAcesso;
+        private int falhas;
+        private long bloqueadoAte;
+
+        Bucket(int capacidade, long agora) {
+            this.tokens = capacidade;
+            this.ultimaReposicao = agora;
+            this.ultimoAcesso = agora;
+        }
+
+        /**
+         * Retorna 0 se a tentativa foi aceita, ou quantos ms faltam para a próxima.
+         */
+        synchronized long tentar(long agora, int capacidade, double porMinuto) {
+            ultimoAcesso = agora;
+            if (bloqueadoAte > agora) {
+                return bloqueadoAte - agora;
+            }
+
+            tokens = Math.min(capacidade, tokens + (agora - ultimaReposicao) * porMinuto / 60000.0);
+            ultimaReposicao = agora;
+
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) * 60000.0 / porMinuto);
+            }
+            tokens -= 1;
+            return 0;
+        }
+
+        synchronized void falhou(long agora, int toleradas, long baseMs, long maxMs) {
+            falhas++;
+            if (falhas <= toleradas) {
+                return;
+            }
+            long espera = baseMs << Math.min(falhas - toleradas - 1, 20);
+            bloqueadoAte = agora + Math.min(espera, maxMs);
+        }
+
+        synchronized void zerarFalhas() {
+            falhas = 0;
+            bloqueadoAte = 0;
+        }
+
+        synchronized boolean ocioso(long agora, long idleTtlMs) {
+            return bloqueadoAte <= agora && agora - ultimoAcesso >= idleTtlMs;
+        }
+
+        record Despejo(boolean comFalhas, long ultimoAcesso) {}
+
+        /**
+         * Dados para ordenar o despejo, ou null se o bucket está bloqueado.
+         */
+        synchronized Despejo despejo(long agora, long idleTtlMs) {
+            if (bloqueadoAte > agora) {
+                return null;
+            }
+            return new Despejo(falhas > 0 && !ocioso(agora, idleTtlMs), ultimoAcesso);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.ipa.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de estoque em memória para dias de pico (estoque.motor.enabled, desligado por padrão).
+ *
+ * O saldo de cada produto/semente fica num ContadorEstoque; cada movimentação é gravada no
+ * diário local (LedgerEstoque) junto com o commit da transação que a originou e aplicada no
+ * banco em lote, com estoque = estoque + delta, a cada estoque.motor.flush-ms. Na subida, o que o diário tem
+ * além do checkpoint (tb_estoque_checkpoint) é reaplicado antes de qualquer saldo ser carregado.
+ *
+ * Pressupõe uma única instância dona do estoque: com várias, cada uma teria o seu saldo.
+ * Com o motor ligado, o estoque lido do banco fica atrás do real por até um intervalo de flush.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class MotorEstoqueService {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorEstoqueService.class);
+
+    public static final char PRODUTO = 'P';
+    public static final char SEMENTE = 'S';
+
+    // Sem incrementar versao: com o motor, edições do cadastro não tocam no estoque (@DynamicUpdate)
+    // e não precisam conflitar com os flushes
+    private static final String APLICAR_PRODUTO =
+            "UPDATE tb_produtos SET estoque = estoque + ? WHERE id = ?";
+    private static final String APLICAR_SEMENTE =
+            "UPDATE tb_sementes SET estoque_disponivel = COALESCE(estoque_disponivel, 0) + ? WHERE id = ?";
+    private static final String GRAVAR_CHECKPOINT =
+            "INSERT INTO tb_estoque_checkpoint (no, ultimo_seq) VALUES (?, ?) "
+                    + "ON DUPLICATE KEY UPDATE ultimo_seq = VALUES(ultimo_seq)";
+
+    @Value("${estoque.motor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${estoque.motor.no:principal}")
+    private String no;
+
+    @Value("${estoque.motor.diretorio:data/estoque-ledger}")
+    private String diretorio;
+
+    @Value("${estoque.motor.fsync:true}")
+    private boolean fsync;
+
+    @Value("${estoque.motor.segmento-bytes:8388608}")
+    private long bytesPorSegmento;
+
+    @Value("${estoque.motor.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${estoque.motor.celulas:0}") // 0 = número de núcleos
+    private int celulas;
+
+    @Value("${estoque.motor.recarga:16}")
+    private long recarga;
+
+    @Value("${estoque.motor.lote-flush:5000}")
+    private int loteFlush;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, ContadorEstoque> produtos = new ConcurrentHashMap<>();
+    private final Map<Long, ContadorEstoque> sementes = new ConcurrentHashMap<>();
+
+    private LedgerEstoque ledger;
+    private TransactionTemplate transacao;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (celulas <= 0) {
+            celulas = Runtime.getRuntime().availableProcessors();
+        }
+        transacao = new TransactionTemplate(transactionManager);
+
+        ledger = LedgerEstoque.abrir(Paths.get(diretorio), bytesPorSegmento, fsync, timeoutMs, lerCheckpoint());
+        // Recuperação: o banco alcança o diário antes de qualquer saldo ir para a memória
+        while (aplicarNoBanco() > 0) {
+            // continua até esvaziar
+        }
+        if (!ledger.pendentes(1).isEmpty()) {
+            throw new IllegalStateException("Não foi possível reaplicar o diário de estoque no banco");
+        }
+
+        meterRegistry.gauge("estoque.motor.itens", produtos, m -> m.size() + sementes.size());
+        log.info("Motor de estoque ativo ({} células por item, diário em {})", celulas, diretorio);
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        ledger.fechar();
+        while (aplicarNoBanco() > 0) {
+            // continua até esvaziar
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Baixa quantidade do item se houver saldo; false se não houver. O saldo em memória é
+     * reservado na hora, mas dentro de uma transação o diário só recebe a baixa no beforeCommit:
+     * uma transação desfeita antes disso não deixa nada no diário, e uma falha ao gravar
+     * desfaz a transação. Em qualquer desfecho sem commit a quantidade volta ao contador.
+     */
+    public boolean baixar(char tipo, Long id, int quantidade) {
+        ContadorEstoque contador = contador(tipo, id);
+        if (!contador.baixar(quantidade)) {
+            return false;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            registrarOuDevolver(contador, tipo, id, quantidade);
+            return true;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean gravada;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                ledger.registrar(tipo, id, -quantidade);
+                gravada = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                contador.adicionar(quantidade);
+                if (gravada) {
+                    // O commit do banco falhou depois da gravação: o estorno anula a baixa no diário
+                    try {
+                        ledger.registrar(tipo, id, quantidade);
+                    } catch (RuntimeException e) {
+                        log.error("Estorno de {} unidades do item {}{} não gravado no diário", quantidade, tipo, id, e);
+                    }
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Entrada (positiva) ou saída (negativa) de estoque; false se a saída deixaria o saldo negativo.
+     * Dentro de uma transação, a entrada só vale depois do commit: devolvê-la num rollback
+     * poderia falhar se as unidades já tivessem sido vendidas.
+     */
+    public boolean ajustar(char tipo, Long id, int quantidade) {
+        if (quantidade < 0) {
+            return baixar(tipo, id, -quantidade);
+        }
+        ContadorEstoque contador = contador(tipo, id);
+        aoConfirmar(() -> {
+            contador.adicionar(quantidade);
+            ledger.registrar(tipo, id, quantidade);
+        });
+        return true;
+    }
+
+    /**
+     * Troca o saldo do item; o diário recebe a diferença, que o banco aplica como as demais.
+     * Dentro de uma transação, a troca é feita só depois do commit.
+     */
+    public void definir(char tipo, Long id, int saldo) {
+        ContadorEstoque contador = contador(tipo, id);
+        aoConfirmar(() -> {
+            long diferenca = contador.definir(saldo);
+            if (diferenca != 0) {
+                ledger.registrar(tipo, id, diferenca);
+            }
+        });
+    }
+
+    public int disponivel(char tipo, Long id) {
+        return (int) contador(tipo, id).disponivel();
+    }
+
+    /**
+     * Grava no banco os lançamentos duráveis ainda não aplicados, somados por item, e avança
+     * o checkpoint na mesma transação. Retorna quantos lançamentos foram aplicados.
+     */
+    @Scheduled(fixedDelayString = "${estoque.motor.flush-ms:1000}")
+    public synchronized int aplicarNoBanco() {
+        if (!enabled) {
+            return 0;
+        }
+
+        List<LedgerEstoque.Lancamento> lote = ledger.pendentes(loteFlush);
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> deltasProdutos = new LinkedHashMap<>();
+        Map<Long, Long> deltasSementes = new LinkedHashMap<>();
+        for (LedgerEstoque.Lancamento lancamento : lote) {
+            Map<Long, Long> deltas = lancamento.tipo() == PRODUTO ? deltasProdutos : deltasSementes;
+            deltas.merge(lancamento.itemId(), lancamento.delta(), Long::sum);
+        }
+        long ultimoSeq = lote.get(lote.size() - 1).seq();
+
+        try {
+            transacao.executeWithoutResult(status -> {
+                aplicar(APLICAR_PRODUTO, deltasProdutos);
+                aplicar(APLICAR_SEMENTE, deltasSementes);
+                jdbcTemplate.update(GRAVAR_CHECKPOINT, no, ultimoSeq);
+            });
+        } catch (RuntimeException e) {
+            // Os lançamentos continuam no diário e na fila: nova tentativa no próximo ciclo
+            log.error("Falha ao aplicar {} lançamentos de estoque no banco", lote.size(), e);
+            return 0;
+        }
+
+        ledger.confirmarAplicados(ultimoSeq);
+        return lote.size();
+    }
+
+    // ===== AUXILIARES =====
+
+    // Sem transação: se o diário não confirmar, o contador volta ao saldo anterior
+    private void registrarOuDevolver(ContadorEstoque contador, char tipo, Long id, int quantidade) {
+        try {
+            ledger.registrar(tipo, id, -quantidade);
+        } catch (RuntimeException e) {
+            contador.adicionar(quantidade);
+            throw e;
+        }
+    }
+
+    // Sem transação, aplica na hora; com ela, no afterCommit (um rollback não chega ao diário)
+    private void aoConfirmar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private ContadorEstoque contador(char tipo, Long id) {
+        if (!enabled) {
+            throw new IllegalStateException("Motor de estoque desligado");
+        }
+        Map<Long, ContadorEstoque> contadores = tipo == PRODUTO ? produtos : sementes;
+        // Sem lançamento pendente para um item ainda não carregado, o banco tem o saldo exato
+        return contadores.computeIfAbsent(id, chave -> new ContadorEstoque(lerSaldo(tipo, chave), celulas, recarga));
+    }
+
+    private long lerSaldo(char tipo, Long id) {
+        String sql = tipo == PRODUTO
+                ? "SELECT estoque FROM tb_produtos WHERE id = ?"
+                : "SELECT COALESCE(estoque_disponivel, 0) FROM tb_sementes WHERE id = ?";
+        try {
+            Long saldo = jdbcTemplate.queryForObject(sql, Long.class, id);
+            return saldo != null ? saldo : 0;
+        } catch (EmptyResultDataAccessException e) {
+            throw new RuntimeException(tipo == PRODUTO ? "Produto não encontrado" : "Semente não encontrada");
+        }
+    }
+
+    private long lerCheckpoint() {
+        List<Long> valores = jdbcTemplate.queryForList(
+                "SELECT ultimo_seq FROM tb_estoque_checkpoint WHERE no = ?", Long.class, no);
+        return valores.isEmpty() ? 0 : valores.get(0);
+    }
+
+    private void aplicar(String sql, Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> argumentos = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> argumentos.add(new Object[] {delta, id}));
+        jdbcTemplate.batchUpdate(sql, argumentos);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.exception.ServicoSobrecarregadoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executa hash e verificação de senha (BCrypt) num pool dedicado e limitado,
+ * para que picos de login não consumam as threads do Tomcat dos demais endpoints.
+ * Com o pool e a fila cheios, ou quando a espera prevista na fila já passa do timeout,
+ * a chamada falha na hora com ServicoSobrecarregadoException.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${auth.bcrypt.strength:10}")
+    private int strength;
+
+    // 0 = número de núcleos disponíveis
+    @Value("${auth.bcrypt.threads:0}")
+    private int threads;
+
+    @Value("${auth.bcrypt.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.bcrypt.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private int tamanho;
+
+    // Média móvel da duração de um hash/verificação, para estimar a espera de quem entra na fila
+    private final AtomicLong duracaoMediaNs = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                tamanho,
+                tamanho,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // Primeira amostra na subida: sem ela a primeira rajada entraria toda na fila
+        long inicio = System.nanoTime();
+        passwordEncoder.encode("calibragem");
+        registrarDuracao(System.nanoTime() - inicio);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public String encode(String senha) {
+        return executar(() -> passwordEncoder.encode(senha));
+    }
+
+    public boolean matches(String senha, String hash) {
+        return executar(() -> passwordEncoder.matches(senha, hash));
+    }
+
+    public boolean isBcrypt(String hash) {
+        return hash != null && BCRYPT_COST.matcher(hash).find();
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo diferente do configurado (ou não é BCrypt).
+     */
+    public boolean precisaRehash(String hash) {
+        if (hash == null) {
+            return true;
+        }
+        Matcher m = BCRYPT_COST.matcher(hash);
+        return !m.find() || Integer.parseInt(m.group(1)) != strength;
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        // Quem não seria atendido antes do timeout recebe o 503 agora, e não depois de esperar na fila
+        long esperaPrevistaNs = (executor.getQueue().size() / tamanho + 1) * duracaoMediaNs.get();
+        if (TimeUnit.NANOSECONDS.toMillis(esperaPrevistaNs) > timeoutMs) {
+            throw new ServicoSobrecarregadoException("Muitas tentativas de login simultâneas. Tente novamente em instantes.", 1);
+        }
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    return tarefa.call();
+                } finally {
+                    registrarDuracao(System.nanoTime() - inicio);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServicoSobrecarregadoException("Muitas tentativas de login simultâneas. Tente novamente em instantes.", 1);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServicoSobrecarregadoException("Tempo de verificação de senha excedido. Tente novamente.", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Verificação de senha interrompida", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erro ao processar senha", e.getCause());
+        }
+    }
+
+    private void registrarDuracao(long duracaoNs) {
+        duracaoMediaNs.updateAndGet(media -> media == 0 ? duracaoNs : media + (duracaoNs - media) / 8);
+    }
+}
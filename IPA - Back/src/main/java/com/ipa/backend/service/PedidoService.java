@@ -1,5 +1,8 @@
 package com.ipa.backend.service;
 
+import com.ipa.backend.dto.Cursor;
+import com.ipa.backend.dto.HistoricoStatusDTO;
+import com.ipa.backend.dto.Pagina;
 import com.ipa.backend.dto.PedidoDTO;
 import com.ipa.backend.model.Pedido;
 import com.ipa.backend.model.Produto;
@@ -8,16 +11,15 @@ import com.ipa.backend.repository.PedidoRepository;
 import com.ipa.backend.repository.ProdutoRepository;
 import com.ipa.backend.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 public class PedidoService {
@@ -31,37 +33,63 @@ public class PedidoService {
     @Autowired
     private ProdutoRepository produtoRepository;
 
-    private static final String CARACTERES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final SecureRandom random = new SecureRandom();
+    @Autowired
+    private CodigoRastreioService codigoRastreioService;
+
+    @Autowired
+    private RastreamentoService rastreamentoService;
+
+    @Autowired
+    private RastreamentoEventosService rastreamentoEventosService;
+
+    @Autowired
+    private HistoricoStatusService historicoStatusService;
+
+    @Autowired
+    private MotorEstoqueService motorEstoqueService;
 
-    public Page<PedidoDTO> listarTodos(Pageable pageable) {
-        return pedidoRepository.findAll(pageable).map(this::convertToDTO);
+    @Value("${paginacao.tamanho-padrao:50}")
+    private int tamanhoPadrao;
+
+    @Value("${paginacao.tamanho-maximo:200}")
+    private int tamanhoMaximo;
+
+    @Transactional(readOnly = true)
+    public Pagina<PedidoDTO> listarTodos(String cursor, Integer limite) {
+        Cursor posicao = Cursor.decodificar(cursor);
+        int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+        return pagina(pedidoRepository.paginaApos(posicao.data(), posicao.id(), PageRequest.of(0, tamanho + 1)),
+                tamanho);
     }
 
+    @Transactional(readOnly = true)
     public PedidoDTO buscarPorId(Long id) {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
         return convertToDTO(pedido);
     }
 
+    @Transactional(readOnly = true)
     public PedidoDTO rastrearPorCodigo(String codigo) {
         Pedido pedido = pedidoRepository.findByNumeroRastreio(codigo)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com o código: " + codigo));
         return convertToDTO(pedido);
     }
 
-    public List<PedidoDTO> listarPorStatus(String status) {
-        return pedidoRepository.findByStatus(status)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Pagina<PedidoDTO> listarPorStatus(String status, String cursor, Integer limite) {
+        Cursor posicao = Cursor.decodificar(cursor);
+        int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+        return pagina(pedidoRepository.paginaPorStatusApos(status, posicao.data(), posicao.id(),
+                PageRequest.of(0, tamanho + 1)), tamanho);
     }
 
-    public List<PedidoDTO> listarPorUsuario(Long usuarioId) {
-        return pedidoRepository.findByUsuarioId(usuarioId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Pagina<PedidoDTO> listarPorUsuario(Long usuarioId, String cursor, Integer limite) {
+        Cursor posicao = Cursor.decodificar(cursor);
+        int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+        return pagina(pedidoRepository.paginaPorUsuarioApos(usuarioId, posicao.data(), posicao.id(),
+                PageRequest.of(0, tamanho + 1)), tamanho);
     }
 
     @Transactional
@@ -72,15 +100,14 @@ public class PedidoService {
         Produto produto = produtoRepository.findById(pedidoDTO.getProdutoId())
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado"));
 
-        // Verificar estoque
-        if (produto.getEstoque() < pedidoDTO.getQuantidade()) {
-            throw new RuntimeException("Estoque insuficiente");
+        if (pedidoDTO.getQuantidade() == null || pedidoDTO.getQuantidade() <= 0) {
+            throw new RuntimeException("Quantidade inválida");
         }
 
         Pedido pedido = new Pedido();
         
         // ✅ Gerar código de rastreio único
-        pedido.setNumeroRastreio(gerarCodigoRastreioUnico());
+        pedido.setNumeroRastreio(codigoRastreioService.gerar());
         
         pedido.setUsuario(usuario);
         pedido.setProduto(produto);
@@ -90,11 +117,18 @@ public class PedidoService {
         pedido.setDataPedido(LocalDateTime.now());
         pedido.setObservacoes(pedidoDTO.getObservacoes());
 
-        // Atualizar estoque
-        produto.setEstoque(produto.getEstoque() - pedidoDTO.getQuantidade());
-        produtoRepository.save(produto);
+        // Baixa atômica (UPDATE ... WHERE estoque >= :q) no fim da transação, para segurar
+        // a trava da linha do produto pelo menor tempo possível
+        boolean baixado = motorEstoqueService.isEnabled()
+                ? motorEstoqueService.baixar(MotorEstoqueService.PRODUTO, produto.getId(), pedidoDTO.getQuantidade())
+                : produtoRepository.baixarEstoque(produto.getId(), pedidoDTO.getQuantidade()) > 0;
+        if (!baixado) {
+            throw new RuntimeException("Estoque insuficiente");
+        }
 
         Pedido pedidoSalvo = pedidoRepository.save(pedido);
+        // Descarta uma eventual consulta negativa ao mesmo código
+        rastreamentoService.invalidarPedido(pedidoSalvo.getNumeroRastreio());
         return convertToDTO(pedidoSalvo);
     }
 
@@ -103,6 +137,7 @@ public class PedidoService {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
 
+        String statusAnterior = pedido.getStatus();
         pedido.setStatus(novoStatus);
 
         if ("ENTREGUE".equals(novoStatus)) {
@@ -110,54 +145,31 @@ public class PedidoService {
         }
 
         Pedido pedidoAtualizado = pedidoRepository.save(pedido);
+        historicoStatusService.registrar(HistoricoStatusService.PEDIDO, pedidoAtualizado.getId(),
+                pedidoAtualizado.getNumeroRastreio(), statusAnterior, novoStatus, pedidoAtualizado.getDataPedido());
+        rastreamentoService.invalidarPedido(pedidoAtualizado.getNumeroRastreio());
+        rastreamentoEventosService.publicarPedido(pedidoAtualizado.getNumeroRastreio());
         return convertToDTO(pedidoAtualizado);
     }
 
     @Transactional
     public void deletar(Long id) {
-        pedidoRepository.deleteById(id);
+        pedidoRepository.findById(id).ifPresent(pedido -> {
+            pedidoRepository.delete(pedido);
+            rastreamentoService.invalidarPedido(pedido.getNumeroRastreio());
+            rastreamentoEventosService.publicarPedido(pedido.getNumeroRastreio());
+        });
     }
 
-    /**
-     * Gera um código de rastreio único no formato: SAFRA-2025-XXXXXXXX
-     * Onde XXXXXXXX são 8 caracteres alfanuméricos aleatórios
-     * Garante que o código não existe no banco de dados
-     */
-    private String gerarCodigoRastreioUnico() {
-        String codigo;
-        int tentativas = 0;
-        int maxTentativas = 10;
-
-        do {
-            codigo = gerarCodigoRastreio();
-            tentativas++;
-            
-            // Proteção contra loop infinito (muito improvável)
-            if (tentativas >= maxTentativas) {
-                throw new RuntimeException("Erro ao gerar código de rastreio único. Tente novamente.");
-            }
-            
-        } while (pedidoRepository.findByNumeroRastreio(codigo).isPresent());
-
-        return codigo;
+    public List<HistoricoStatusDTO> buscarHistorico(Long id) {
+        if (!pedidoRepository.existsById(id)) {
+            throw new RuntimeException("Pedido não encontrado");
+        }
+        return historicoStatusService.linhaDoTempo(HistoricoStatusService.PEDIDO, id);
     }
 
-    /**
-     * Gera o código no formato: SAFRA-2025-XXXXXXXX
-     * Exemplo: SAFRA-2025-K7L8M9N0
-     */
-    private String gerarCodigoRastreio() {
-        int ano = LocalDateTime.now().getYear();
-        StringBuilder codigo = new StringBuilder("SAFRA-");
-        codigo.append(ano).append("-");
-        
-        // Gerar 8 caracteres alfanuméricos aleatórios
-        for (int i = 0; i < 8; i++) {
-            int index = random.nextInt(CARACTERES.length());
-            codigo.append(CARACTERES.charAt(index));
-        }
-        
-        return codigo.toString();
+    private Pagina<PedidoDTO> pagina(List<PedidoDTO> linhas, int tamanho) {
+        return Pagina.de(linhas, tamanho, p -> new Cursor(p.getDataPedido(), p.getId()), Function.identity());
     }
 
     private PedidoDTO convertToDTO(Pedido pedido) {
@@ -2,13 +2,19 @@ package com.ipa.backend.service;
 
 import com.ipa.backend.model.Produto;
 import com.ipa.backend.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProdutoService {
@@ -16,6 +22,15 @@ public class ProdutoService {
     @Autowired
     private ProdutoRepository produtoRepository;
 
+    @Autowired
+    private MotorEstoqueService motorEstoqueService;
+
+    @Autowired
+    private RastreamentoService rastreamentoService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Page<Produto> listarTodos(Pageable pageable) {
         return produtoRepository.findAll(pageable);
     }
@@ -24,6 +39,20 @@ public class ProdutoService {
         return produtoRepository.findAll();
     }
 
+    /**
+     * Entrega cada Produto, ainda gerenciado, enquanto o cursor avança; ao voltar do consumidor
+     * ele é desanexado, então o consumidor não deve guardá-lo nem navegar relações depois disso.
+     */
+    @Transactional(readOnly = true)
+    public void percorrerTodos(Consumer<Produto> consumidor) {
+        try (Stream<Produto> produtos = produtoRepository.streamTodos()) {
+            produtos.forEach(produto -> {
+                consumidor.accept(produto);
+                entityManager.detach(produto);
+            });
+        }
+    }
+
     public Produto buscarPorId(Long id) {
         return produtoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado"));
@@ -46,11 +75,27 @@ public class ProdutoService {
     public Produto atualizar(Long id, Produto produtoAtualizado) {
         Produto produto = buscarPorId(id);
 
+        // Versão informada pelo cliente: a edição partiu de um estado que já mudou
+        if (produtoAtualizado.getVersao() != null && !produtoAtualizado.getVersao().equals(produto.getVersao())) {
+            throw new ObjectOptimisticLockingFailureException(Produto.class, id);
+        }
+
+        // O nome do produto aparece no rastreio dos pedidos
+        if (!Objects.equals(produto.getNome(), produtoAtualizado.getNome())) {
+            rastreamentoService.invalidarPedidos();
+        }
         produto.setNome(produtoAtualizado.getNome());
         produto.setDescricao(produtoAtualizado.getDescricao());
         produto.setCategoria(produtoAtualizado.getCategoria());
         produto.setPreco(produtoAtualizado.getPreco());
-        produto.setEstoque(produtoAtualizado.getEstoque());
+        if (motorEstoqueService.isEnabled()) {
+            // Com o motor, o saldo muda só por ele, no commit (a coluna é atualizada no flush)
+            if (produtoAtualizado.getEstoque() != null) {
+                motorEstoqueService.definir(MotorEstoqueService.PRODUTO, id, produtoAtualizado.getEstoque());
+            }
+        } else {
+            produto.setEstoque(produtoAtualizado.getEstoque());
+        }
         produto.setUnidadeMedida(produtoAtualizado.getUnidadeMedida());
 
         return produtoRepository.save(produto);
@@ -63,8 +108,26 @@ public class ProdutoService {
 
     @Transactional
     public Produto atualizarEstoque(Long id, Integer quantidade) {
-        Produto produto = buscarPorId(id);
-        produto.setEstoque(produto.getEstoque() + quantidade);
-        return produtoRepository.save(produto);
+        if (quantidade == null) {
+            throw new RuntimeException("Quantidade inválida");
+        }
+        if (motorEstoqueService.isEnabled()) {
+            if (!motorEstoqueService.ajustar(MotorEstoqueService.PRODUTO, id, quantidade)) {
+                throw new RuntimeException("Estoque insuficiente");
+            }
+            // O banco recebe o ajuste no próximo flush; a resposta mostra o saldo do motor, com a
+            // entrada (que só vale após o commit) já somada
+            Produto produto = buscarPorId(id);
+            entityManager.detach(produto);
+            produto.setEstoque(motorEstoqueService.disponivel(MotorEstoqueService.PRODUTO, id)
+                    + Math.max(quantidade, 0));
+            return produto;
+        }
+
+        if (produtoRepository.ajustarEstoque(id, quantidade) == 0) {
+            buscarPorId(id);
+            throw new RuntimeException("Estoque insuficiente");
+        }
+        return buscarPorId(id);
     }
 }
\ No newline at end of file
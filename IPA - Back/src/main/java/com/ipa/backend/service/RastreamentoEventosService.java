@@ -0,0 +1,390 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.exception.ServicoSobrecarregadoException;
+import com.ipa.backend.service.RastreamentoService.VisaoRastreamento;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Eventos SSE de mudança de status do rastreamento (/rastrear/{codigo}/eventos).
+ *
+ * As conexões ficam em modo assíncrono do servlet (SseEmitter), sem thread por assinante.
+ * Cada assinante tem uma fila limitada: se o cliente não acompanha, os eventos mais antigos
+ * são descartados, já que cada evento traz a visão completa. A publicação só acontece depois
+ * do commit, sem bloquear a transação que alterou o registro.
+ *
+ * A escrita no socket é bloqueante, então a distribuição (um pool pequeno, só enfileira) fica
+ * separada do envio (um pool elástico, uma drenagem por assinante). Uma escrita presa só termina
+ * no timeout de escrita do Tomcat (server.tomcat.connection-timeout, alinhado a envio-timeout-ms);
+ * até lá, cada cliente (IP) ocupa no máximo envios-por-cliente threads de envio e tem no máximo
+ * max-por-cliente assinaturas, então poucos clientes que não leem não esgotam o pool. Drenagens
+ * recusadas por pool cheio esperam numa fila e rodam assim que uma thread se libera.
+ */
+@Service
+public class RastreamentoEventosService {
+
+    private static final Logger log = LoggerFactory.getLogger(RastreamentoEventosService.class);
+
+    private static final String SOLICITACAO = "s:";
+    private static final String PEDIDO = "p:";
+
+    @Autowired
+    private RastreamentoService rastreamentoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rastreio.eventos.timeout-ms:1800000}") // 30 minutos; o EventSource reconecta sozinho
+    private long timeoutMs;
+
+    @Value("${rastreio.eventos.buffer:8}")
+    private int buffer;
+
+    @Value("${rastreio.eventos.max-assinantes:50000}")
+    private int maxAssinantes;
+
+    @Value("${rastreio.eventos.threads:2}")
+    private int threads;
+
+    @Value("${rastreio.eventos.envio-threads:64}")
+    private int envioThreads;
+
+    @Value("${rastreio.eventos.envio-timeout-ms:10000}")
+    private long envioTimeoutMs;
+
+    @Value("${rastreio.eventos.max-por-cliente:20}")
+    private int maxPorCliente;
+
+    @Value("${rastreio.eventos.envios-por-cliente:2}")
+    private int enviosPorCliente;
+
+    // chave ("s:" ou "p:" + código) -> assinantes
+    private final Map<String, Set<Assinante>> assinantes = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+
+    // cliente (IP) -> assinaturas ativas / threads de envio ocupadas
+    private final Map<String, Integer> assinaturasPorCliente = new ConcurrentHashMap<>();
+    private final Map<String, Integer> enviosEmCurso = new ConcurrentHashMap<>();
+
+    // Assinantes cuja drenagem o pool de envio recusou
+    private final Queue<Assinante> aguardando = new ConcurrentLinkedQueue<>();
+
+    // Recarrega a visão e enfileira nos assinantes; nunca escreve no socket
+    private ExecutorService executor;
+
+    // Drenagem das filas; sem fila de espera, cresce até envioThreads e recusa o excesso
+    private ThreadPoolExecutor envio;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newFixedThreadPool(threads, fabrica("rastreio-sse-"));
+        envio = new ThreadPoolExecutor(threads, Math.max(threads, envioThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), fabrica("rastreio-sse-envio-"));
+        Gauge.builder("rastreio.eventos.assinantes", total, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        envio.shutdownNow();
+        assinantes.values().forEach(conjunto -> conjunto.forEach(a -> a.emitter.complete()));
+    }
+
+    public SseEmitter assinarSolicitacao(String codigo, VisaoRastreamento atual, String cliente) {
+        return assinar(SOLICITACAO + codigo, atual, cliente);
+    }
+
+    public SseEmitter assinarPedido(String codigo, VisaoRastreamento atual, String cliente) {
+        return assinar(PEDIDO + codigo, atual, cliente);
+    }
+
+    /**
+     * Agenda a notificação para depois do commit da transação corrente (ou já, se não houver).
+     * Deve ser chamado depois de RastreamentoService.invalidar*, para rodar após a invalidação.
+     */
+    public void publicarSolicitacao(String codigo) {
+        publicarAposCommit(SOLICITACAO + codigo, codigo, rastreamentoService::recarregarSolicitacao);
+    }
+
+    public void publicarPedido(String codigo) {
+        publicarAposCommit(PEDIDO + codigo, codigo, rastreamentoService::recarregarPedido);
+    }
+
+    /**
+     * Comentário SSE periódico: mantém proxies e NAT abertos e revela conexões mortas.
+     * Assinantes presos numa escrita há mais de envio-timeout-ms são desligados.
+     */
+    @Scheduled(fixedDelayString = "${rastreio.eventos.heartbeat-ms:20000}")
+    public void heartbeat() {
+        long agora = System.currentTimeMillis();
+        assinantes.values().forEach(conjunto -> conjunto.forEach(a -> {
+            if (a.travado(agora)) {
+                log.debug("Assinante de {} sem progresso no envio, desligando", a.chave);
+                a.remover();
+            } else {
+                a.enfileirar(Evento.HEARTBEAT);
+            }
+        }));
+    }
+
+    // Ocupa uma vaga do cliente no contador; false se ele já está no limite
+    private static boolean ocupar(Map<String, Integer> contadores, String cliente, int limite) {
+        boolean[] ocupou = {false};
+        contadores.compute(cliente, (k, atual) -> {
+            int valor = atual != null ? atual : 0;
+            if (valor >= limite) {
+                return atual;
+            }
+            ocupou[0] = true;
+            return valor + 1;
+        });
+        return ocupou[0];
+    }
+
+    private static void liberar(Map<String, Integer> contadores, String cliente) {
+        contadores.computeIfPresent(cliente, (k, atual) -> atual <= 1 ? null : atual - 1);
+    }
+
+    // Uma thread de envio acabou de se liberar: a vez é de quem o pool recusou
+    private void retomarAguardando() {
+        Assinante proximo;
+        while ((proximo = aguardando.poll()) != null) {
+            if (proximo.ativo.get()) {
+                proximo.agendar();
+                return;
+            }
+        }
+    }
+
+    private static ThreadFactory fabrica(String prefixo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefixo + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private SseEmitter assinar(String chave, VisaoRastreamento atual, String cliente) {
+        if (!ocupar(assinaturasPorCliente, cliente, maxPorCliente)) {
+            throw new ServicoSobrecarregadoException("Limite de acompanhamentos simultâneos deste cliente atingido", 30);
+        }
+        if (total.incrementAndGet() > maxAssinantes) {
+            total.decrementAndGet();
+            liberar(assinaturasPorCliente, cliente);
+            throw new ServicoSobrecarregadoException("Limite de acompanhamentos simultâneos atingido", 30);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(chave, cliente, emitter);
+        // Dentro do compute para não correr com a remoção do último assinante da mesma chave
+        assinantes.compute(chave, (k, conjunto) -> {
+            Set<Assinante> atualizado = conjunto != null ? conjunto : ConcurrentHashMap.newKeySet();
+            atualizado.add(assinante);
+            return atualizado;
+        });
+
+        emitter.onCompletion(assinante::remover);
+        emitter.onTimeout(assinante::remover);
+        emitter.onError(e -> assinante.remover());
+
+        // Estado atual como primeiro evento, para o cliente não precisar de um GET extra
+        assinante.enfileirar(new Evento(atual));
+        return emitter;
+    }
+
+    private void publicarAposCommit(String chave, String codigo, Function<String, Optional<VisaoRastreamento>> recarregar) {
+        if (codigo == null) {
+            return;
+        }
+
+        Runnable publicar = () -> {
+            if (assinantes.containsKey(chave)) {
+                try {
+                    executor.execute(() -> distribuir(chave, codigo, recarregar));
+                } catch (RejectedExecutionException e) {
+                    log.debug("Evento de rastreamento {} descartado no desligamento", codigo);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        publicar.run();
+                    }
+                }
+            });
+        } else {
+            publicar.run();
+        }
+    }
+
+    private void distribuir(String chave, String codigo, Function<String, Optional<VisaoRastreamento>> recarregar) {
+        Set<Assinante> conjunto = assinantes.get(chave);
+        if (conjunto == null || conjunto.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Uma leitura por evento, não por assinante
+            Evento evento = recarregar.apply(codigo)
+                    .map(Evento::new)
+                    .orElse(Evento.REMOVIDO);
+            conjunto.forEach(a -> a.enfileirar(evento));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao publicar evento de rastreamento {}: {}", codigo, e.getMessage());
+        }
+    }
+
+    private enum Tipo { STATUS, HEARTBEAT, REMOVIDO }
+
+    private record Evento(Tipo tipo, VisaoRastreamento visao) {
+        static final Evento HEARTBEAT = new Evento(Tipo.HEARTBEAT, null);
+        static final Evento REMOVIDO = new Evento(Tipo.REMOVIDO, null);
+
+        Evento(VisaoRastreamento visao) {
+            this(Tipo.STATUS, visao);
+        }
+    }
+
+    private final class Assinante {
+
+        private final String chave;
+        private final String cliente;
+        private final SseEmitter emitter;
+        private final Queue<Evento> fila;
+        private final AtomicBoolean drenando = new AtomicBoolean();
+        private final AtomicBoolean ativo = new AtomicBoolean(true);
+        // Início da escrita em andamento (epoch ms); 0 fora de um envio
+        private volatile long enviandoDesde;
+
+        Assinante(String chave, String cliente, SseEmitter emitter) {
+            this.chave = chave;
+            this.cliente = cliente;
+            this.emitter = emitter;
+            this.fila = new ArrayBlockingQueue<>(buffer);
+        }
+
+        void enfileirar(Evento evento) {
+            if (!ativo.get()) {
+                return;
+            }
+            if (evento.tipo() == Tipo.HEARTBEAT && !fila.isEmpty()) {
+                agendar(); // já há algo para enviar; retenta se o pool recusou antes
+                return;
+            }
+            while (!fila.offer(evento)) {
+                fila.poll(); // cliente lento: descarta o mais antigo
+            }
+            agendar();
+        }
+
+        private void agendar() {
+            if (!drenando.compareAndSet(false, true)) {
+                return;
+            }
+            if (!ocupar(enviosEmCurso, cliente, enviosPorCliente)) {
+                // O cliente já segura suas threads de envio: a fila fica para o próximo evento ou heartbeat
+                drenando.set(false);
+                return;
+            }
+            try {
+                envio.execute(this::drenar);
+            } catch (RejectedExecutionException e) {
+                liberar(enviosEmCurso, cliente);
+                drenando.set(false);
+                aguardando.add(this);
+            }
+        }
+
+        private void drenar() {
+            try {
+                Evento evento;
+                while (ativo.get() && (evento = fila.poll()) != null) {
+                    enviandoDesde = System.currentTimeMillis();
+                    enviar(evento);
+                    enviandoDesde = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Conexão fechada pelo cliente, ou desligada pelo heartbeat e enfim liberada pelo container
+                remover();
+                emitter.completeWithError(e);
+            } finally {
+                enviandoDesde = 0;
+                liberar(enviosEmCurso, cliente);
+                drenando.set(false);
+            }
+            if (ativo.get() && !fila.isEmpty()) {
+                agendar();
+            }
+            retomarAguardando();
+        }
+
+        private void enviar(Evento evento) throws IOException {
+            switch (evento.tipo()) {
+                case HEARTBEAT -> emitter.send(SseEmitter.event().comment("ping"));
+                case REMOVIDO -> {
+                    emitter.send(SseEmitter.event().name("removido").data(Map.of("codigo", chave.substring(2))));
+                    remover();
+                    emitter.complete();
+                }
+                case STATUS -> emitter.send(SseEmitter.event()
+                        .name("status")
+                        .id(evento.visao().etag())
+                        .data(evento.visao().dados(), MediaType.APPLICATION_JSON));
+            }
+        }
+
+        boolean travado(long agora) {
+            long desde = enviandoDesde;
+            return desde != 0 && agora - desde > envioTimeoutMs;
+        }
+
+        void remover() {
+            if (ativo.compareAndSet(true, false)) {
+                total.decrementAndGet();
+                // A vaga de envio só volta quando a thread presa na escrita sair
+                liberar(assinaturasPorCliente, cliente);
+                fila.clear();
+                assinantes.computeIfPresent(chave, (k, conjunto) -> {
+                    conjunto.remove(this);
+                    return conjunto.isEmpty() ? null : conjunto;
+                });
+            }
+        }
+    }
+}
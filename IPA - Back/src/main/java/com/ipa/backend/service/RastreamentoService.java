@@ -0,0 +1,418 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.cache.TtlCache;
+import com.ipa.backend.dto.PedidoRastreioDTO;
+import com.ipa.backend.dto.SolicitacaoRastreioDTO;
+import com.ipa.backend.repository.PedidoRepository;
+import com.ipa.backend.repository.SolicitacaoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Visões públicas de rastreamento (/rastrear) já montadas, com cache read-through por código.
+ * As entradas são invalidadas pelos serviços quando o registro (ou um nome exibido nele) muda;
+ * códigos inexistentes ficam num cache negativo curto. Cada visão carrega um ETag forte derivado da versão do
+ * registro, usado pelos controllers para responder 304 sem serializar o corpo.
+ */
+@Service
+public class RastreamentoService {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    @Autowired
+    private SolicitacaoRepository solicitacaoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rastreio.cache.max-size:50000}")
+    private int maxSize;
+
+    @Value("${rastreio.cache.ttl-ms:300000}") // 5 minutos
+    private long ttlMs;
+
+    @Value("${rastreio.cache.negative-ttl-ms:5000}")
+    private long negativeTtlMs;
+
+    @Value("${rastreio.lote.tamanho-bloco:500}")
+    private int tamanhoBloco;
+
+    @Value("${rastreio.lote.max-codigos:5000}")
+    private int maxCodigos;
+
+    public record VisaoRastreamento(Map<String, Object> dados, String etag) {
+    }
+
+    // Optional.empty() = código sabidamente inexistente
+    private TtlCache<String, Optional<VisaoRastreamento>> solicitacoes;
+    private TtlCache<String, Optional<VisaoRastreamento>> pedidos;
+
+    // Incrementadas a cada invalidação: uma leitura que começou antes não regrava o valor antigo
+    private final AtomicLong geracaoSolicitacoes = new AtomicLong();
+    private final AtomicLong geracaoPedidos = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        solicitacoes = new TtlCache<>(maxSize);
+        solicitacoes.registrarMetricas(meterRegistry, "rastreio.solicitacao.cache");
+        pedidos = new TtlCache<>(maxSize);
+        pedidos.registrarMetricas(meterRegistry, "rastreio.pedido.cache");
+    }
+
+    public Optional<VisaoRastreamento> rastrearSolicitacao(String codigo) {
+        Optional<VisaoRastreamento> visao = solicitacoes.get(codigo);
+        return visao != null ? visao : recarregarSolicitacao(codigo);
+    }
+
+    public Optional<VisaoRastreamento> rastrearPedido(String codigo) {
+        Optional<VisaoRastreamento> visao = pedidos.get(codigo);
+        return visao != null ? visao : recarregarPedido(codigo);
+    }
+
+    /**
+     * Lê do banco ignorando o cache e regrava a entrada (usado também após um commit).
+     */
+    public Optional<VisaoRastreamento> recarregarSolicitacao(String codigo) {
+        long antes = geracaoSolicitacoes.get();
+        Optional<VisaoRastreamento> visao = solicitacaoRepository.buscarRastreio(codigo).map(this::montarVisao);
+        guardar(solicitacoes, geracaoSolicitacoes, antes, codigo, visao);
+        return visao;
+    }
+
+    public Optional<VisaoRastreamento> recarregarPedido(String codigo) {
+        long antes = geracaoPedidos.get();
+        Optional<VisaoRastreamento> visao = pedidoRepository.buscarRastreio(codigo).map(this::montarVisao);
+        guardar(pedidos, geracaoPedidos, antes, codigo, visao);
+        return visao;
+    }
+
+    /**
+     * Valida a lista antes de começar a resposta: depois do primeiro byte não há mais como devolver 400.
+     */
+    public void validarLote(List<String> codigos) {
+        if (codigos == null || codigos.isEmpty()) {
+            throw new RuntimeException("Informe ao menos um código de rastreio");
+        }
+        if (codigos.size() > maxCodigos) {
+            throw new RuntimeException("Informe no máximo " + maxCodigos + " códigos por consulta");
+        }
+        if (codigos.stream().anyMatch(codigo -> codigo == null || codigo.isBlank())) {
+            throw new RuntimeException("Código de rastreio inválido na lista");
+        }
+    }
+
+    /**
+     * Resolve vários códigos, entregando cada resultado (vazio = não encontrado) na ordem recebida.
+     * Os que não estão em cache são buscados com um IN por bloco, e cada bloco é entregue
+     * assim que resolvido, para que o chamador possa escrever a resposta aos poucos.
+     */
+    public void rastrearSolicitacoes(Collection<String> codigos, BiConsumer<String, Optional<VisaoRastreamento>> consumidor) {
+        rastrearEmLote(codigos, solicitacoes, geracaoSolicitacoes, faltantes -> solicitacaoRepository.buscarRastreios(faltantes)
+                .stream()
+                .collect(Collectors.toMap(SolicitacaoRastreioDTO::getCodigoRastreio, this::montarVisao)), consumidor);
+    }
+
+    public void rastrearPedidos(Collection<String> codigos, BiConsumer<String, Optional<VisaoRastreamento>> consumidor) {
+        rastrearEmLote(codigos, pedidos, geracaoPedidos, faltantes -> pedidoRepository.buscarRastreios(faltantes)
+                .stream()
+                .collect(Collectors.toMap(PedidoRastreioDTO::getNumeroRastreio, this::montarVisao)), consumidor);
+    }
+
+    private void rastrearEmLote(Collection<String> codigos,
+                                TtlCache<String, Optional<VisaoRastreamento>> cache,
+                                AtomicLong geracao,
+                                Function<List<String>, Map<String, VisaoRastreamento>> buscar,
+                                BiConsumer<String, Optional<VisaoRastreamento>> consumidor) {
+        List<String> unicos = new ArrayList<>(new LinkedHashSet<>(codigos));
+
+        for (int inicio = 0; inicio < unicos.size(); inicio += tamanhoBloco) {
+            List<String> bloco = unicos.subList(inicio, Math.min(inicio + tamanhoBloco, unicos.size()));
+
+            Map<String, Optional<VisaoRastreamento>> resultados = new HashMap<>();
+            List<String> faltantes = new ArrayList<>();
+            for (String codigo : bloco) {
+                Optional<VisaoRastreamento> visao = cache.get(codigo);
+                if (visao != null) {
+                    resultados.put(codigo, visao);
+                } else {
+                    faltantes.add(codigo);
+                }
+            }
+
+            if (!faltantes.isEmpty()) {
+                long antes = geracao.get();
+                Map<String, VisaoRastreamento> encontrados = buscar.apply(faltantes);
+                for (String codigo : faltantes) {
+                    Optional<VisaoRastreamento> visao = Optional.ofNullable(encontrados.get(codigo));
+                    guardar(cache, geracao, antes, codigo, visao);
+                    resultados.put(codigo, visao);
+                }
+            }
+
+            for (String codigo : bloco) {
+                consumidor.accept(codigo, resultados.get(codigo));
+            }
+        }
+    }
+
+    public void invalidarSolicitacao(String codigo) {
+        if (codigo != null) {
+            invalidar(geracaoSolicitacoes, () -> solicitacoes.invalidate(codigo));
+        }
+    }
+
+    public void invalidarPedido(String codigo) {
+        if (codigo != null) {
+            invalidar(geracaoPedidos, () -> pedidos.invalidate(codigo));
+        }
+    }
+
+    /**
+     * Descarta todas as visões de pedido: o nome do produto e o do solicitante vêm embutidos nelas,
+     * e renomear um dos dois atinge pedidos que não temos como listar sem ir ao banco.
+     */
+    public void invalidarPedidos() {
+        invalidar(geracaoPedidos, pedidos::clear);
+    }
+
+    /**
+     * Grava a visão lida, a menos que uma invalidação tenha ocorrido desde o início da leitura
+     * (nesse caso o valor pode ser anterior ao commit e é descartado logo em seguida).
+     */
+    private void guardar(TtlCache<String, Optional<VisaoRastreamento>> cache, AtomicLong geracao, long antes,
+                         String codigo, Optional<VisaoRastreamento> visao) {
+        cache.put(codigo, visao, visao.isPresent() ? ttlMs : negativeTtlMs);
+        if (geracao.get() != antes) {
+            cache.invalidate(codigo);
+        }
+    }
+
+    /**
+     * Descarta agora e de novo ao fim da transação corrente, avançando a geração nas duas vezes.
+     */
+    private static void invalidar(AtomicLong geracao, Runnable descartar) {
+        geracao.incrementAndGet();
+        descartar.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    geracao.incrementAndGet();
+                    descartar.run();
+                }
+            });
+        }
+    }
+
+    // ===== MONTAGEM DAS VISÕES =====
+
+    private VisaoRastreamento montarVisao(SolicitacaoRastreioDTO solicitacao) {
+        Map<String, Object> response = new HashMap<>();
+
+        // ✅ Informações básicas
+        response.put("id", solicitacao.getId());
+        response.put("codigoRastreio", solicitacao.getCodigoRastreio());
+        response.put("status", solicitacao.getStatus());
+
+        // ✅ Datas formatadas
+        response.put("dataSolicitacao", solicitacao.getDataCriacao().format(FORMATTER));
+        if (solicitacao.getDataAtualizacao() != null) {
+            response.put("dataAtualizacao", solicitacao.getDataAtualizacao().format(FORMATTER));
+        }
+
+        // ✅ Informações do insumo
+        response.put("tipoInsumo", solicitacao.getTipoInsumo());
+        response.put("cultura", solicitacao.getCultura());
+        response.put("variedade", solicitacao.getVariedade());
+        response.put("quantidade", solicitacao.getQuantidade());
+        response.put("unidadeMedida", solicitacao.getUnidadeMedida());
+
+        // ✅ Informações do beneficiário
+        response.put("beneficiarioNome", solicitacao.getBeneficiarioNome());
+        response.put("beneficiarioCpf", solicitacao.getBeneficiarioCpf());
+        response.put("municipioDestino", solicitacao.getMunicipioDestino());
+
+        // ✅ Informações do solicitante
+        response.put("solicitanteNome", solicitacao.getSolicitanteNome());
+        response.put("localAtuacao", solicitacao.getLocalAtuacao());
+
+        // ✅ Etapas de rastreamento
+        response.put("etapas", gerarEtapasSolicitacao(solicitacao.getStatus()));
+
+        // ✅ Observações
+        if (solicitacao.getObservacoes() != null) {
+            response.put("observacoes", solicitacao.getObservacoes());
+        }
+
+        // dataAtualizacao muda a cada UPDATE (@PreUpdate)
+        LocalDateTime versao = solicitacao.getDataAtualizacao() != null
+                ? solicitacao.getDataAtualizacao()
+                : solicitacao.getDataCriacao();
+        String etag = gerarEtag("s", solicitacao.getId(), versao.toString());
+
+        return new VisaoRastreamento(Collections.unmodifiableMap(response), etag);
+    }
+
+    private VisaoRastreamento montarVisao(PedidoRastreioDTO pedido) {
+        Map<String, Object> response = new HashMap<>();
+
+        // ✅ Informações básicas do pedido
+        response.put("id", pedido.getId());
+        response.put("numeroRastreio", pedido.getNumeroRastreio());
+        response.put("status", pedido.getStatus());
+
+        // ✅ Datas formatadas
+        response.put("dataSolicitacao", pedido.getDataPedido().format(FORMATTER));
+        if (pedido.getDataEntrega() != null) {
+            response.put("dataEntrega", pedido.getDataEntrega().format(FORMATTER));
+        }
+
+        // ✅ Informações do produto
+        response.put("produto", pedido.getProdutoNome());
+        response.put("quantidade", pedido.getQuantidade());
+        response.put("valorTotal", pedido.getValorTotal());
+
+        // ✅ Informações do solicitante
+        response.put("solicitante", pedido.getUsuarioNome());
+
+        // ✅ Etapas de rastreamento com base no status
+        response.put("etapas", gerarEtapasPedido(pedido.getStatus()));
+
+        // ✅ Observações
+        if (pedido.getObservacoes() != null) {
+            response.put("observacoes", pedido.getObservacoes());
+        }
+
+        // Pedido não tem dataAtualizacao e a visão traz nomes de outras tabelas: a versão é
+        // composta de todos os campos exibidos (as etapas derivam do status)
+        String versao = String.join("\u001f",
+                pedido.getStatus(),
+                String.valueOf(pedido.getDataPedido()),
+                String.valueOf(pedido.getDataEntrega()),
+                pedido.getProdutoNome(),
+                String.valueOf(pedido.getQuantidade()),
+                String.valueOf(pedido.getValorTotal()),
+                pedido.getUsuarioNome(),
+                pedido.getObservacoes());
+        String etag = gerarEtag("p", pedido.getId(), versao);
+
+        return new VisaoRastreamento(Collections.unmodifiableMap(response), etag);
+    }
+
+    /**
+     * ETag forte e opaco: hash da versão do registro, sem expor datas ao cliente.
+     */
+    private static String gerarEtag(String tipo, Long id, String versao) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest((tipo + ":" + id + ":" + versao).getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(bytes, 12)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Gera as etapas de rastreamento da solicitação com base no status atual
+     */
+    private List<Map<String, Object>> gerarEtapasSolicitacao(String status) {
+        return List.of(
+            Map.of(
+                "etapa", "Solicitação Registrada",
+                "descricao", "Solicitação criada no sistema",
+                "concluida", true,
+                "icone", "📝"),
+            Map.of(
+                "etapa", "Em Análise",
+                "descricao", "Verificação de requisitos e disponibilidade",
+                "concluida", !status.equals("RASCUNHO"),
+                "icone", "🔍"),
+            Map.of(
+                "etapa", "Aprovada",
+                "descricao", "Solicitação aprovada pelo IPA",
+                "concluida", status.equals("APROVADA") || status.equals("EM_PREPARACAO") || status.equals("DESPACHADA")
+                    || status.equals("ENTREGUE"),
+                "icone", "✅"),
+            Map.of(
+                "etapa", "Em Preparação",
+                "descricao", "Separação e embalagem do insumo",
+                "concluida", status.equals("EM_PREPARACAO") || status.equals("DESPACHADA") || status.equals("ENTREGUE"),
+                "icone", "📦"),
+            Map.of(
+                "etapa", "Despachada",
+                "descricao", "Insumo em rota de entrega",
+                "concluida", status.equals("DESPACHADA") || status.equals("ENTREGUE"),
+                "icone", "🚚"),
+            Map.of(
+                "etapa", "Entregue",
+                "descricao", "Insumo recebido pelo beneficiário",
+                "concluida", status.equals("ENTREGUE"),
+                "icone", "🎉"));
+    }
+
+    /**
+     * Gera as etapas de rastreamento do pedido com base no status atual
+     */
+    private List<Map<String, Object>> gerarEtapasPedido(String status) {
+        return List.of(
+            Map.of(
+                "etapa", "Solicitação Recebida",
+                "descricao", "Pedido registrado no sistema",
+                "concluida", true,
+                "icone", "📝"
+            ),
+            Map.of(
+                "etapa", "Análise e Aprovação",
+                "descricao", "Verificação de estoque e documentação",
+                "concluida", status.equals("APROVADO") || status.equals("EM_ROTA") || status.equals("ENTREGUE"),
+                "icone", "✅"
+            ),
+            Map.of(
+                "etapa", "Preparação do Insumo",
+                "descricao", "Separação e embalagem",
+                "concluida", status.equals("EM_ROTA") || status.equals("ENTREGUE"),
+                "icone", "📦"
+            ),
+            Map.of(
+                "etapa", "Em Rota de Entrega",
+                "descricao", "Produto a caminho do destino",
+                "concluida", status.equals("EM_ROTA") || status.equals("ENTREGUE"),
+                "icone", "🚚"
+            ),
+            Map.of(
+                "etapa", "Entregue",
+                "descricao", "Produto recebido pelo agricultor",
+                "concluida", status.equals("ENTREGUE"),
+                "icone", "🎉"
+            )
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.model.RefreshToken;
+import com.ipa.backend.model.UsuarioIpa;
+import com.ipa.backend.repository.RefreshTokenRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Refresh tokens rotativos guardados no servidor: cada uso invalida o token e emite outro.
+ * A reutilização de um token já rotacionado revoga todos os refresh tokens do usuário.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh.expiration:604800000}") // 7 dias
+    private long refreshExpiration;
+
+    public record Rotacao(UsuarioIpa usuario, String refreshToken) {
+    }
+
+    @Transactional
+    public String emitir(UsuarioIpa usuario) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String valor = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(valor));
+        token.setUsuario(usuario);
+        token.setDataCriacao(LocalDateTime.now());
+        token.setExpiraEm(LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000));
+        refreshTokenRepository.save(token);
+
+        return valor;
+    }
+
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public Rotacao rotacionar(String valor) {
+        RefreshToken token = buscarValido(valor);
+
+        if (refreshTokenRepository.revogarSeAtivo(token.getTokenHash(), LocalDateTime.now()) == 0) {
+            // Token já usado (inclusive por uma rotação simultânea): possível roubo, revoga a família inteira
+            refreshTokenRepository.revogarTodosDoUsuario(token.getUsuario().getId(), LocalDateTime.now());
+            throw new RuntimeException("Refresh token inválido");
+        }
+
+        UsuarioIpa usuario = (UsuarioIpa) Hibernate.unproxy(token.getUsuario());
+        return new Rotacao(usuario, emitir(usuario));
+    }
+
+    @Transactional
+    public void revogar(String valor) {
+        refreshTokenRepository.revogarSeAtivo(hash(valor), LocalDateTime.now());
+    }
+
+    @Transactional
+    public void revogarTodos(Long usuarioId) {
+        refreshTokenRepository.revogarTodosDoUsuario(usuarioId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-ms:3600000}")
+    @Transactional
+    public void limparExpirados() {
+        refreshTokenRepository.deletarExpirados(LocalDateTime.now());
+    }
+
+    private RefreshToken buscarValido(String valor) {
+        if (valor == null || valor.isBlank()) {
+            throw new RuntimeException("Refresh token inválido");
+        }
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(valor))
+                .orElseThrow(() -> new RuntimeException("Refresh token inválido"));
+        if (token.getExpiraEm().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Refresh token expirado");
+        }
+        return token;
+    }
+
+    private static String hash(String valor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(valor.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
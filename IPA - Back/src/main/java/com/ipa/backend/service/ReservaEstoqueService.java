@@ -0,0 +1,337 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.cache.TtlCache;
+import com.ipa.backend.dto.SaldoSementeDTO;
+import com.ipa.backend.exception.EstoqueInsuficienteException;
+import com.ipa.backend.model.ReservaEstoque;
+import com.ipa.backend.repository.ReservaEstoqueRepository;
+import com.ipa.backend.repository.SementeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reservas de estoque de sementes atreladas ao status das solicitações.
+ *
+ * APROVADA reserva a quantidade numa semente compatível (tipo, cultura e variedade) com prazo de
+ * reserva.validade-horas; EM_PREPARACAO/DESPACHADA tiram o prazo; ENTREGUE baixa o estoque
+ * (da reserva ou, sem ela, direto do saldo livre); CANCELADA, a volta para EM_ANALISE/RASCUNHO
+ * ou a exclusão liberam. Reservas vencidas são liberadas pelo agendador; a solicitação continua
+ * APROVADA e reserva de novo ao avançar.
+ *
+ * Com o motor de estoque ligado, o disponível vem do motor e o reservado da coluna, lida com a
+ * linha da semente travada: reservar, entregar e o ajuste manual se serializam por semente.
+ *
+ * Os métodos de mudança de status rodam na transação do chamador e não são @Transactional de
+ * propósito: uma EstoqueInsuficienteException não marca a transação para rollback, então a
+ * mudança em lote pode recusar um item e seguir com os demais.
+ */
+@Service
+public class ReservaEstoqueService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaEstoqueService.class);
+
+    public static final String ATIVA = "ATIVA";
+    public static final String CONSUMIDA = "CONSUMIDA";
+    public static final String LIBERADA = "LIBERADA";
+    public static final String EXPIRADA = "EXPIRADA";
+
+    @Value("${reserva.validade-horas:72}")
+    private long validadeHoras;
+
+    @Value("${reserva.expiracao.lote:200}")
+    private int loteExpiracao;
+
+    @Value("${reserva.saldo.cache.ttl-ms:5000}")
+    private long saldoTtlMs;
+
+    @Value("${reserva.saldo.cache.max-size:10000}")
+    private int saldoMaxSize;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaRepository;
+
+    @Autowired
+    private SementeRepository sementeRepository;
+
+    @Autowired
+    private MotorEstoqueService motorEstoqueService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transacao;
+    private TtlCache<Long, SaldoSementeDTO> saldos;
+    // Avança a cada invalidação: uma leitura que começou antes dela não fica no cache
+    private final AtomicLong geracao = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        transacao = new TransactionTemplate(transactionManager);
+        saldos = new TtlCache<>(saldoMaxSize);
+        saldos.registrarMetricas(meterRegistry, "reserva.saldo.cache");
+    }
+
+    /**
+     * Ajusta a reserva da solicitação ao novo status. Chamar dentro de uma transação.
+     */
+    public void aoMudarStatus(Long solicitacaoId, String tipoInsumo, String cultura, String variedade,
+                              Integer quantidade, String novoStatus) {
+        if (novoStatus == null) {
+            return;
+        }
+        switch (novoStatus) {
+            case "APROVADA" -> reservar(solicitacaoId, tipoInsumo, cultura, variedade, quantidade,
+                    LocalDateTime.now().plusHours(validadeHoras));
+            case "EM_PREPARACAO", "DESPACHADA" -> reservar(solicitacaoId, tipoInsumo, cultura, variedade,
+                    quantidade, null);
+            case "ENTREGUE" -> consumir(solicitacaoId, tipoInsumo, cultura, variedade, quantidade);
+            case "CANCELADA", "EM_ANALISE", "RASCUNHO" -> liberar(solicitacaoId, LIBERADA);
+            default -> {
+                // Status sem efeito no estoque
+            }
+        }
+    }
+
+    /**
+     * Libera a reserva de uma solicitação que será excluída. Chamar dentro de uma transação.
+     */
+    public void aoExcluir(Long solicitacaoId) {
+        liberar(solicitacaoId, LIBERADA);
+    }
+
+    /**
+     * Estoque, reservado e disponível da semente, servidos de memória enquanto nada muda.
+     */
+    public SaldoSementeDTO saldo(Long sementeId) {
+        SaldoSementeDTO saldo = saldos.get(sementeId);
+        if (saldo == null) {
+            long antes = geracao.get();
+            saldo = sementeRepository.buscarSaldo(sementeId)
+                    .orElseThrow(() -> new RuntimeException("Semente não encontrada"));
+            saldos.put(sementeId, saldo, saldoTtlMs);
+            if (geracao.get() != antes) {
+                saldos.invalidate(sementeId);
+            }
+        }
+        if (motorEstoqueService.isEnabled()) {
+            // Com o motor, o estoque da coluna está atrás do real por até um flush
+            return new SaldoSementeDTO(sementeId,
+                    motorEstoqueService.disponivel(MotorEstoqueService.SEMENTE, sementeId), saldo.getReservado());
+        }
+        return saldo;
+    }
+
+    /**
+     * Descarta o saldo em cache agora e de novo ao fim da transação corrente.
+     */
+    public void invalidarSaldo(Long sementeId) {
+        geracao.incrementAndGet();
+        saldos.invalidate(sementeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    geracao.incrementAndGet();
+                    saldos.invalidate(sementeId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Libera as reservas vencidas, em lotes curtos e mais antigas primeiro. Usa o índice
+     * (status, expira_em), então o custo acompanha o número de vencidas, não o tamanho da tabela;
+     * linhas presas por outra transação (ou outra instância) ficam para a próxima rodada.
+     */
+    @Scheduled(fixedDelayString = "${reserva.expiracao.intervalo-ms:60000}")
+    public void expirarVencidas() {
+        int total = 0;
+        int expiradas;
+        do {
+            expiradas = transacao.execute(status -> {
+                List<ReservaEstoque> vencidas = reservaRepository.bloquearVencidas(ATIVA, LocalDateTime.now(),
+                        PageRequest.of(0, loteExpiracao));
+                for (ReservaEstoque reserva : vencidas) {
+                    finalizar(reserva, EXPIRADA);
+                    sementeRepository.liberarReserva(reserva.getSementeId(), reserva.getQuantidade());
+                    invalidarSaldo(reserva.getSementeId());
+                }
+                return vencidas.size();
+            });
+            total += expiradas;
+        } while (expiradas == loteExpiracao);
+
+        if (total > 0) {
+            log.info("{} reservas de estoque expiradas", total);
+        }
+    }
+
+    // ===== AUXILIARES =====
+
+    private void reservar(Long solicitacaoId, String tipoInsumo, String cultura, String variedade,
+                          Integer quantidade, LocalDateTime expiraEm) {
+        if (quantidade == null || quantidade <= 0) {
+            throw new EstoqueInsuficienteException("Quantidade da solicitação inválida para reserva");
+        }
+        List<Long> compativeis = sementeRepository.buscarCompativeis(tipoInsumo, cultura, vazioComoNulo(variedade));
+        Optional<ReservaEstoque> existente = reservaRepository.bloquearPorSolicitacao(solicitacaoId);
+
+        if (existente.isPresent() && ATIVA.equals(existente.get().getStatus())) {
+            ReservaEstoque reserva = existente.get();
+            if (reserva.getQuantidade().equals(quantidade) && compativeis.contains(reserva.getSementeId())) {
+                // Mesma reserva: só renova ou retira o prazo
+                reserva.setExpiraEm(expiraEm);
+                reservaRepository.save(reserva);
+                return;
+            }
+            // Quantidade ou insumo mudaram: devolve e reserva de novo (se faltar saldo, fica liberada)
+            sementeRepository.liberarReserva(reserva.getSementeId(), reserva.getQuantidade());
+            finalizar(reserva, LIBERADA);
+            invalidarSaldo(reserva.getSementeId());
+        }
+
+        Long sementeId = null;
+        for (Long candidata : compativeis) {
+            if (reservarEm(candidata, quantidade)) {
+                sementeId = candidata;
+                break;
+            }
+        }
+        if (sementeId == null) {
+            throw new EstoqueInsuficienteException(compativeis.isEmpty()
+                    ? "Nenhuma semente ativa cadastrada para " + cultura + (variedade != null ? " " + variedade : "")
+                    : "Estoque insuficiente para reservar " + quantidade + " de " + cultura);
+        }
+        invalidarSaldo(sementeId);
+
+        ReservaEstoque reserva = existente.orElseGet(ReservaEstoque::new);
+        reserva.setSolicitacaoId(solicitacaoId);
+        reserva.setSementeId(sementeId);
+        reserva.setQuantidade(quantidade);
+        reserva.setStatus(ATIVA);
+        reserva.setDataCriacao(LocalDateTime.now());
+        reserva.setExpiraEm(expiraEm);
+        reserva.setDataFinalizacao(null);
+        reservaRepository.save(reserva);
+    }
+
+    private void consumir(Long solicitacaoId, String tipoInsumo, String cultura, String variedade,
+                          Integer quantidade) {
+        Optional<ReservaEstoque> existente = reservaRepository.bloquearPorSolicitacao(solicitacaoId);
+        if (existente.isPresent() && CONSUMIDA.equals(existente.get().getStatus())) {
+            return; // já entregue: o estoque saiu uma vez
+        }
+
+        if (existente.isPresent() && ATIVA.equals(existente.get().getStatus())) {
+            ReservaEstoque reserva = existente.get();
+            if (motorEstoqueService.isEnabled()) {
+                // O motor é dono da coluna de estoque: a baixa vai por ele, a reserva direto no banco
+                travarSemente(reserva.getSementeId());
+                if (!motorEstoqueService.ajustar(MotorEstoqueService.SEMENTE, reserva.getSementeId(),
+                        -reserva.getQuantidade())) {
+                    throw new EstoqueInsuficienteException("Estoque insuficiente para entregar a reserva");
+                }
+                sementeRepository.liberarReserva(reserva.getSementeId(), reserva.getQuantidade());
+            } else {
+                sementeRepository.consumirReserva(reserva.getSementeId(), reserva.getQuantidade());
+            }
+            finalizar(reserva, CONSUMIDA);
+            invalidarSaldo(reserva.getSementeId());
+            return;
+        }
+
+        // Sem reserva ativa (vencida, ou aprovada antes das reservas): baixa do saldo livre ou recusa
+        if (quantidade == null || quantidade <= 0) {
+            throw new EstoqueInsuficienteException("Quantidade da solicitação inválida para entrega");
+        }
+        Long sementeId = null;
+        for (Long candidata : sementeRepository.buscarCompativeis(tipoInsumo, cultura, vazioComoNulo(variedade))) {
+            if (baixarLivre(candidata, quantidade)) {
+                sementeId = candidata;
+                break;
+            }
+        }
+        if (sementeId == null) {
+            throw new EstoqueInsuficienteException("Estoque insuficiente para entregar " + quantidade + " de " + cultura);
+        }
+        invalidarSaldo(sementeId);
+
+        ReservaEstoque reserva = existente.orElseGet(ReservaEstoque::new);
+        reserva.setSolicitacaoId(solicitacaoId);
+        reserva.setSementeId(sementeId);
+        reserva.setQuantidade(quantidade);
+        reserva.setDataCriacao(LocalDateTime.now());
+        finalizar(reserva, CONSUMIDA);
+    }
+
+    private boolean reservarEm(Long sementeId, int quantidade) {
+        if (!motorEstoqueService.isEnabled()) {
+            return sementeRepository.reservar(sementeId, quantidade) == 1;
+        }
+        int reservado = travarSemente(sementeId);
+        if (motorEstoqueService.disponivel(MotorEstoqueService.SEMENTE, sementeId) - reservado < quantidade) {
+            return false;
+        }
+        sementeRepository.somarReserva(sementeId, quantidade);
+        return true;
+    }
+
+    private boolean baixarLivre(Long sementeId, int quantidade) {
+        if (!motorEstoqueService.isEnabled()) {
+            return sementeRepository.baixarLivre(sementeId, quantidade) == 1;
+        }
+        int reservado = travarSemente(sementeId);
+        if (motorEstoqueService.disponivel(MotorEstoqueService.SEMENTE, sementeId) - reservado < quantidade) {
+            return false;
+        }
+        return motorEstoqueService.ajustar(MotorEstoqueService.SEMENTE, sementeId, -quantidade);
+    }
+
+    /**
+     * Trava a linha da semente até o fim da transação e devolve o reservado.
+     */
+    public int travarSemente(Long sementeId) {
+        return sementeRepository.bloquearReservado(sementeId)
+                .orElseThrow(() -> new RuntimeException("Semente não encontrada"));
+    }
+
+    private void liberar(Long solicitacaoId, String statusFinal) {
+        reservaRepository.bloquearPorSolicitacao(solicitacaoId)
+                .filter(reserva -> ATIVA.equals(reserva.getStatus()))
+                .ifPresent(reserva -> {
+                    sementeRepository.liberarReserva(reserva.getSementeId(), reserva.getQuantidade());
+                    finalizar(reserva, statusFinal);
+                    invalidarSaldo(reserva.getSementeId());
+                });
+    }
+
+    private void finalizar(ReservaEstoque reserva, String status) {
+        reserva.setStatus(status);
+        reserva.setExpiraEm(null);
+        reserva.setDataFinalizacao(LocalDateTime.now());
+        reservaRepository.save(reserva);
+    }
+
+    private static String vazioComoNulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor;
+    }
+}
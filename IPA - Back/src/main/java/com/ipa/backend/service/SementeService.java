@@ -1,13 +1,18 @@
 package com.ipa.backend.service;
 
+import com.ipa.backend.dto.SaldoSementeDTO;
 import com.ipa.backend.dto.SementeDTO;
 import com.ipa.backend.model.Semente;
 import com.ipa.backend.repository.SementeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SementeService {
@@ -15,32 +20,47 @@ public class SementeService {
     @Autowired
     private SementeRepository sementeRepository;
 
+    @Autowired
+    private MotorEstoqueService motorEstoqueService;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
     public List<SementeDTO> listarTodas() {
-        return sementeRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return sementeRepository.listarTodas();
+    }
+
+    /**
+     * Exportação das sementes: converte cada linha do cursor em SementeDTO e libera a entidade
+     * do contexto antes de ler a próxima.
+     */
+    @Transactional(readOnly = true)
+    public void percorrerTodas(Consumer<SementeDTO> consumidor) {
+        try (Stream<Semente> sementes = sementeRepository.streamTodas()) {
+            sementes.forEach(semente -> {
+                consumidor.accept(convertToDTO(semente));
+                entityManager.detach(semente);
+            });
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<SementeDTO> listarAtivas() {
-        return sementeRepository.findByAtivoTrueOrderByNomeAsc()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return sementeRepository.listarAtivas();
     }
 
+    @Transactional(readOnly = true)
     public List<SementeDTO> listarPorTipo(String tipo) {
-        return sementeRepository.findByTipo(tipo)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return sementeRepository.listarPorTipo(tipo);
     }
 
+    @Transactional(readOnly = true)
     public List<SementeDTO> listarPorCultura(String cultura) {
-        return sementeRepository.findByCultura(cultura)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return sementeRepository.listarPorCultura(cultura);
     }
 
     public List<SementeDTO> buscarPorNome(String nome) {
@@ -68,9 +88,18 @@ public class SementeService {
         Semente semente = sementeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Semente não encontrada"));
 
+        Integer estoqueAtual = semente.getEstoqueDisponivel();
         atualizarDados(semente, dto);
+        // O estoque não vai pela entidade: com o motor, muda só por ele (a coluna é atualizada no flush);
+        // sem ele, por um UPDATE que respeita as reservas
+        semente.setEstoqueDisponivel(estoqueAtual);
         Semente atualizada = sementeRepository.save(semente);
-        return convertToDTO(atualizada);
+        SementeDTO resposta = convertToDTO(atualizada);
+        if (dto.getEstoqueDisponivel() != null && !dto.getEstoqueDisponivel().equals(estoqueAtual)) {
+            definirEstoque(semente, dto.getEstoqueDisponivel());
+            resposta.setEstoqueDisponivel(dto.getEstoqueDisponivel());
+        }
+        return resposta;
     }
 
     @Transactional
@@ -95,10 +124,37 @@ public class SementeService {
     public SementeDTO atualizarEstoque(Long id, Integer quantidade) {
         Semente semente = sementeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Semente não encontrada"));
-        
-        semente.setEstoqueDisponivel(quantidade);
-        Semente atualizada = sementeRepository.save(semente);
-        return convertToDTO(atualizada);
+
+        definirEstoque(semente, quantidade);
+        // Com o motor, o saldo é trocado no commit e o banco recebe a diferença no flush seguinte
+        SementeDTO dto = convertToDTO(semente);
+        dto.setEstoqueDisponivel(quantidade);
+        return dto;
+    }
+
+    public SaldoSementeDTO buscarSaldo(Long id) {
+        return reservaEstoqueService.saldo(id);
+    }
+
+    private void definirEstoque(Semente semente, Integer quantidade) {
+        if (quantidade == null || quantidade < 0) {
+            throw new RuntimeException("Quantidade em estoque inválida");
+        }
+        if (motorEstoqueService.isEnabled()) {
+            // Mesma trava e mesma leitura do reservado que as reservas usam
+            int reservado = reservaEstoqueService.travarSemente(semente.getId());
+            if (quantidade < reservado) {
+                throw new RuntimeException(reservadoAcima(reservado));
+            }
+            motorEstoqueService.definir(MotorEstoqueService.SEMENTE, semente.getId(), quantidade);
+        } else if (sementeRepository.definirEstoque(semente.getId(), quantidade) == 0) {
+            throw new RuntimeException(reservadoAcima(semente.getEstoqueReservado()));
+        }
+        reservaEstoqueService.invalidarSaldo(semente.getId());
+    }
+
+    private static String reservadoAcima(Integer reservado) {
+        return "O estoque não pode ficar abaixo do reservado para solicitações aprovadas (" + reservado + ")";
     }
 
     // Conversões
@@ -118,6 +174,7 @@ public class SementeService {
         dto.setDataCriacao(semente.getDataCriacao());
         dto.setDataAtualizacao(semente.getDataAtualizacao());
         dto.setObservacoes(semente.getObservacoes());
+        dto.setEstoqueReservado(semente.getEstoqueReservado());
         return dto;
     }
 
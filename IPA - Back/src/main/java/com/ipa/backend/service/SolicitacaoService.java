@@ -1,23 +1,40 @@
 package com.ipa.backend.service;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ipa.backend.dto.Cursor;
+import com.ipa.backend.dto.HistoricoStatusDTO;
+import com.ipa.backend.dto.Pagina;
 import com.ipa.backend.dto.SolicitacaoDto;
 import com.ipa.backend.dto.SolicitacaoDto;
+import com.ipa.backend.dto.StatusLoteDTO;
+import com.ipa.backend.dto.StatusLoteResultadoDTO;
+import com.ipa.backend.exception.EstoqueInsuficienteException;
 import com.ipa.backend.model.Solicitacao;
-import com.ipa.backend.model.Usuario;
-import com.ipa.backend.model.UsuarioIpa;
 import com.ipa.backend.repository.SolicitacaoRepository;
 import com.ipa.backend.repository.UsuarioRepository;
 import com.ipa.backend.repository.UsuarioIpaRepository;
 
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class SolicitacaoService {
@@ -31,21 +48,72 @@ public class SolicitacaoService {
   @Autowired
   private UsuarioRepository usuarioRepository;
 
-  private static final String CARACTERES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-  private static final SecureRandom random = new SecureRandom();
+  @Autowired
+  private CadastroPorCpfService cadastroPorCpfService;
+
+  @Autowired
+  private CodigoRastreioService codigoRastreioService;
+
+  @Autowired
+  private RastreamentoService rastreamentoService;
+
+  @Autowired
+  private RastreamentoEventosService rastreamentoEventosService;
+
+  @Autowired
+  private HistoricoStatusService historicoStatusService;
+
+  @Autowired
+  private ReservaEstoqueService reservaEstoqueService;
+
+  @Value("${paginacao.tamanho-padrao:50}")
+  private int tamanhoPadrao;
+
+  @Value("${paginacao.tamanho-maximo:200}")
+  private int tamanhoMaximo;
+
+  @Value("${solicitacao.status-lote.max-ids:5000}")
+  private int maxIdsLote;
+
+  @Value("${solicitacao.status-lote.tamanho-bloco:500}")
+  private int tamanhoBlocoLote;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
 
-  public List<SolicitacaoDto> listarTodas() {
-    return solicitacaoRepository.findAll()
-        .stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+  // Cada bloco do lote numa transação própria: linhas bloqueadas por pouco tempo
+  private TransactionTemplate transacao;
+
+  @PostConstruct
+  void init() {
+    transacao = new TransactionTemplate(transactionManager);
+  }
+
+  @Transactional(readOnly = true)
+  public Pagina<SolicitacaoDto> listarTodas(String cursor, Integer limite) {
+    Cursor posicao = Cursor.decodificar(cursor);
+    int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+    return pagina(solicitacaoRepository.paginaApos(posicao.data(), posicao.id(), PageRequest.of(0, tamanho + 1)),
+        tamanho);
+  }
+
+  /**
+   * Repassa ao consumidor as linhas da projeção SolicitacaoDto conforme o cursor as lê.
+   */
+  @Transactional(readOnly = true)
+  public void percorrerTodas(Consumer<SolicitacaoDto> consumidor) {
+    // Projeção direta no DTO: nenhuma entidade entra no contexto de persistência
+    try (Stream<SolicitacaoDto> solicitacoes = solicitacaoRepository.streamTodas()) {
+      solicitacoes.forEach(consumidor);
+    }
   }
 
-  public List<SolicitacaoDto> listarPorStatus(String status) {
-    return solicitacaoRepository.findByStatus(status)
-        .stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+  @Transactional(readOnly = true)
+  public Pagina<SolicitacaoDto> listarPorStatus(String status, String cursor, Integer limite) {
+    Cursor posicao = Cursor.decodificar(cursor);
+    int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+    return pagina(solicitacaoRepository.paginaPorStatusApos(status, posicao.data(), posicao.id(),
+        PageRequest.of(0, tamanho + 1)), tamanho);
   }
 
   public SolicitacaoDto buscarPorId(Long id) {
@@ -54,11 +122,12 @@ public class SolicitacaoService {
     return convertToDTO(solicitacao);
   }
 
-  public List<SolicitacaoDto> buscarPorSolicitante(String cpf) {
-    return solicitacaoRepository.findBySolicitanteCpf(cpf)
-        .stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+  @Transactional(readOnly = true)
+  public Pagina<SolicitacaoDto> buscarPorSolicitante(String cpf, String cursor, Integer limite) {
+    Cursor posicao = Cursor.decodificar(cursor);
+    int tamanho = Pagina.limitar(limite, tamanhoPadrao, tamanhoMaximo);
+    return pagina(solicitacaoRepository.paginaPorSolicitanteApos(cpf, posicao.data(), posicao.id(),
+        PageRequest.of(0, tamanho + 1)), tamanho);
   }
 
   /**
@@ -72,21 +141,19 @@ public class SolicitacaoService {
 
   @Transactional
   public SolicitacaoDto criar(SolicitacaoDto dto) {
-    // Buscar ou criar UsuarioIpa (solicitante)
-    UsuarioIpa solicitante = buscarOuCriarUsuarioIpa(dto);
-
-    // Buscar ou criar Usuario (beneficiário)
-    Usuario beneficiario = buscarOuCriarUsuario(dto);
-
-    // Criar solicitação
+    // Criar solicitação; solicitante e beneficiário são resolvidos (ou criados) por CPF
     Solicitacao solicitacao = convertToEntity(dto);
-    solicitacao.setSolicitante(solicitante);
-    solicitacao.setBeneficiario(beneficiario);
+    vincularSolicitante(solicitacao, dto);
+    vincularBeneficiario(solicitacao, dto);
 
     // ✅ NOVO: Gerar código de rastreio único automaticamente
-    solicitacao.setCodigoRastreio(gerarCodigoRastreioUnico());
+    solicitacao.setCodigoRastreio(codigoRastreioService.gerar());
 
     Solicitacao salva = solicitacaoRepository.save(solicitacao);
+    // Criada já aprovada (ou adiante): reserva ou baixa como numa mudança de status
+    reservarConforme(salva, null);
+    // Descarta uma eventual consulta negativa ao mesmo código
+    rastreamentoService.invalidarSolicitacao(salva.getCodigoRastreio());
     return convertToDTO(salva);
   }
 
@@ -97,18 +164,27 @@ public class SolicitacaoService {
 
     // Atualizar relacionamentos se necessário
     if (dto.getSolicitanteCpf() != null) {
-      UsuarioIpa solicitante = buscarOuCriarUsuarioIpa(dto);
-      solicitacao.setSolicitante(solicitante);
+      vincularSolicitante(solicitacao, dto);
     }
 
     if (dto.getBeneficiarioCpf() != null) {
-      Usuario beneficiario = buscarOuCriarUsuario(dto);
-      solicitacao.setBeneficiario(beneficiario);
+      vincularBeneficiario(solicitacao, dto);
     }
 
+    String statusAnterior = solicitacao.getStatus();
+    List<Object> reservaAnterior = dadosDaReserva(solicitacao);
     atualizarDados(solicitacao, dto);
+    // Só mexe na reserva se algo que ela depende mudou: editar outros campos não renova o prazo
+    // nem falha por falta de estoque depois que a reserva expirou
+    if (!reservaAnterior.equals(dadosDaReserva(solicitacao))) {
+      reservarConforme(solicitacao, statusAnterior);
+    }
 
     Solicitacao atualizada = solicitacaoRepository.save(solicitacao);
+    historicoStatusService.registrar(HistoricoStatusService.SOLICITACAO, atualizada.getId(),
+        atualizada.getCodigoRastreio(), statusAnterior, atualizada.getStatus(), atualizada.getDataCriacao());
+    rastreamentoService.invalidarSolicitacao(atualizada.getCodigoRastreio());
+    rastreamentoEventosService.publicarSolicitacao(atualizada.getCodigoRastreio());
     return convertToDTO(atualizada);
   }
 
@@ -117,97 +193,158 @@ public class SolicitacaoService {
     Solicitacao solicitacao = solicitacaoRepository.findById(id)
         .orElseThrow(() -> new RuntimeException("Solicitação não encontrada"));
 
+    String statusAnterior = solicitacao.getStatus();
     solicitacao.setStatus(novoStatus);
+    reservarConforme(solicitacao, statusAnterior);
 
     Solicitacao atualizada = solicitacaoRepository.save(solicitacao);
+    historicoStatusService.registrar(HistoricoStatusService.SOLICITACAO, atualizada.getId(),
+        atualizada.getCodigoRastreio(), statusAnterior, novoStatus, atualizada.getDataCriacao());
+    rastreamentoService.invalidarSolicitacao(atualizada.getCodigoRastreio());
+    rastreamentoEventosService.publicarSolicitacao(atualizada.getCodigoRastreio());
     return convertToDTO(atualizada);
   }
 
-  @Transactional
-  public void deletar(Long id) {
-    if (!solicitacaoRepository.existsById(id)) {
-      throw new RuntimeException("Solicitação não encontrada");
+  /**
+   * Muda o status de várias solicitações com UPDATEs por bloco (WHERE id IN (...) AND status = :esperado),
+   * sem carregar entidades. Histórico, cache de rastreio e eventos seguem o mesmo caminho de atualizarStatus.
+   */
+  public List<StatusLoteResultadoDTO> atualizarStatusEmLote(StatusLoteDTO lote) {
+    String esperado = lote.getStatusAtual();
+    String novo = lote.getNovoStatus();
+    if (esperado == null || esperado.isBlank() || novo == null || novo.isBlank()) {
+      throw new RuntimeException("Informe o status atual e o novo status");
+    }
+    if (esperado.equals(novo)) {
+      throw new RuntimeException("O novo status deve ser diferente do atual");
     }
-    solicitacaoRepository.deleteById(id);
-  }
 
-  // ===== MÉTODOS DE GERAÇÃO DE CÓDIGO =====
+    List<Long> ids;
+    if (lote.getIds() != null && !lote.getIds().isEmpty()) {
+      ids = new ArrayList<>(new LinkedHashSet<>(lote.getIds()));
+      if (ids.contains(null)) {
+        throw new RuntimeException("Id inválido na lista");
+      }
+      if (ids.size() > maxIdsLote) {
+        throw new RuntimeException("Informe no máximo " + maxIdsLote + " solicitações por lote");
+      }
+    } else {
+      ids = solicitacaoRepository.buscarIdsPorStatus(esperado, lote.getMunicipioDestino(),
+          PageRequest.of(0, maxIdsLote));
+    }
 
-  /**
-   * Gera um código de rastreio único no formato: SAFRA-2025-XXXXXXXX
-   */
-  private String gerarCodigoRastreioUnico() {
-    String codigo;
-    int tentativas = 0;
-    int maxTentativas = 10;
+    List<StatusLoteResultadoDTO> resultados = new ArrayList<>(ids.size());
+    for (int inicio = 0; inicio < ids.size(); inicio += tamanhoBlocoLote) {
+      List<Long> bloco = ids.subList(inicio, Math.min(inicio + tamanhoBlocoLote, ids.size()));
+      resultados.addAll(transacao.execute(status -> atualizarBloco(bloco, esperado, novo)));
+    }
+    return resultados;
+  }
 
-    do {
-      codigo = gerarCodigoRastreio();
-      tentativas++;
+  private List<StatusLoteResultadoDTO> atualizarBloco(List<Long> bloco, String esperado, String novo) {
+    Map<Long, SolicitacaoRepository.EstadoStatus> estados = new HashMap<>();
+    for (SolicitacaoRepository.EstadoStatus estado : solicitacaoRepository.bloquearEstados(bloco)) {
+      estados.put(estado.getId(), estado);
+    }
 
-      if (tentativas >= maxTentativas) {
-        throw new RuntimeException("Erro ao gerar código de rastreio único. Tente novamente.");
+    // Reserva antes do UPDATE: quem não consegue reservar fica fora do lote e mantém o status
+    List<Long> elegiveis = new ArrayList<>();
+    Set<Long> semEstoque = new HashSet<>();
+    for (SolicitacaoRepository.EstadoStatus estado : estados.values()) {
+      if (esperado.equals(estado.getStatus())) {
+        try {
+          reservaEstoqueService.aoMudarStatus(estado.getId(), estado.getTipoInsumo(), estado.getCultura(),
+              estado.getVariedade(), estado.getQuantidade(), novo);
+          elegiveis.add(estado.getId());
+        } catch (EstoqueInsuficienteException e) {
+          semEstoque.add(estado.getId());
+        }
       }
+    }
+    if (!elegiveis.isEmpty()) {
+      solicitacaoRepository.atualizarStatusEmLote(elegiveis, esperado, novo, LocalDateTime.now());
+    }
 
-    } while (solicitacaoRepository.findByCodigoRastreio(codigo).isPresent());
+    List<StatusLoteResultadoDTO> resultados = new ArrayList<>(bloco.size());
+    List<HistoricoStatusService.Transicao> transicoes = new ArrayList<>(elegiveis.size());
+    for (Long id : bloco) {
+      SolicitacaoRepository.EstadoStatus estado = estados.get(id);
+      if (estado == null) {
+        resultados.add(new StatusLoteResultadoDTO(id, StatusLoteResultadoDTO.NAO_ENCONTRADA, null));
+      } else if (!esperado.equals(estado.getStatus())) {
+        resultados.add(new StatusLoteResultadoDTO(id, StatusLoteResultadoDTO.STATUS_DIVERGENTE, estado.getStatus()));
+      } else if (semEstoque.contains(id)) {
+        resultados.add(new StatusLoteResultadoDTO(id, StatusLoteResultadoDTO.ESTOQUE_INSUFICIENTE, esperado));
+      } else {
+        resultados.add(new StatusLoteResultadoDTO(id, StatusLoteResultadoDTO.ATUALIZADA, novo));
+        transicoes.add(new HistoricoStatusService.Transicao(id, estado.getCodigoRastreio(), esperado, novo,
+            estado.getDataCriacao()));
+        rastreamentoService.invalidarSolicitacao(estado.getCodigoRastreio());
+        rastreamentoEventosService.publicarSolicitacao(estado.getCodigoRastreio());
+      }
+    }
+    historicoStatusService.registrarLote(HistoricoStatusService.SOLICITACAO, transicoes);
+    return resultados;
+  }
 
-    return codigo;
+  @Transactional
+  public void deletar(Long id) {
+    Solicitacao solicitacao = solicitacaoRepository.findById(id)
+        .orElseThrow(() -> new RuntimeException("Solicitação não encontrada"));
+    reservaEstoqueService.aoExcluir(id);
+    solicitacaoRepository.delete(solicitacao);
+    rastreamentoService.invalidarSolicitacao(solicitacao.getCodigoRastreio());
+    rastreamentoEventosService.publicarSolicitacao(solicitacao.getCodigoRastreio());
   }
 
-  /**
-   * Gera o código no formato: SAFRA-2025-XXXXXXXX
-   */
-  private String gerarCodigoRastreio() {
-    int ano = LocalDateTime.now().getYear();
-    StringBuilder codigo = new StringBuilder("SAFRA-");
-    codigo.append(ano).append("-");
-
-    // Gerar 8 caracteres alfanuméricos aleatórios
-    for (int i = 0; i < 8; i++) {
-      int index = random.nextInt(CARACTERES.length());
-      codigo.append(CARACTERES.charAt(index));
+  public List<HistoricoStatusDTO> buscarHistorico(Long id) {
+    if (!solicitacaoRepository.existsById(id)) {
+      throw new RuntimeException("Solicitação não encontrada");
     }
-
-    return codigo.toString();
+    return historicoStatusService.linhaDoTempo(HistoricoStatusService.SOLICITACAO, id);
   }
 
   // ===== MÉTODOS AUXILIARES =====
 
-  private UsuarioIpa buscarOuCriarUsuarioIpa(SolicitacaoDto dto) {
-    return usuarioIpaRepository.findByCpf(dto.getSolicitanteCpf())
-        .orElseGet(() -> {
-          UsuarioIpa novo = new UsuarioIpa();
-          novo.setNome(dto.getSolicitanteNome());
-          novo.setCpf(dto.getSolicitanteCpf());
-          novo.setTelefone(dto.getSolicitanteTelefone());
-          novo.setMatriculaIpa(dto.getSolicitanteMatricula());
-          novo.setLocalAtuacao(dto.getLocalAtuacao());
-          novo.setSenha("senha123"); // Senha padrão - deve ser alterada
-          return usuarioIpaRepository.save(novo);
-        });
+  private void reservarConforme(Solicitacao solicitacao, String statusAnterior) {
+    if ("ENTREGUE".equals(statusAnterior) && "ENTREGUE".equals(solicitacao.getStatus())) {
+      return; // o estoque saiu na entrega; editar depois não baixa de novo
+    }
+    reservaEstoqueService.aoMudarStatus(solicitacao.getId(), solicitacao.getTipoInsumo(), solicitacao.getCultura(),
+        solicitacao.getVariedade(), solicitacao.getQuantidade(), solicitacao.getStatus());
+  }
+
+  private List<Object> dadosDaReserva(Solicitacao solicitacao) {
+    return Arrays.asList(solicitacao.getStatus(), solicitacao.getTipoInsumo(), solicitacao.getCultura(),
+        solicitacao.getVariedade(), solicitacao.getQuantidade());
   }
 
-  private Usuario buscarOuCriarUsuario(SolicitacaoDto dto) {
-    return usuarioRepository.findByCpf(dto.getBeneficiarioCpf())
-        .orElseGet(() -> {
-          Usuario novo = new Usuario();
-          novo.setNome(dto.getBeneficiarioNome());
-          novo.setCpf(dto.getBeneficiarioCpf());
-          novo.setCep(dto.getBeneficiarioCep());
-          novo.setCaf(dto.getBeneficiarioCaf());
-          // Converter String para Enum
-          try {
-            novo.setTipoPropriedade(
-                com.ipa.backend.constants.TipoPropriedade.valueOf(dto.getTipoPropriedade()));
-          } catch (Exception e) {
-            novo.setTipoPropriedade(com.ipa.backend.constants.TipoPropriedade.SITIO);
-          }
-          return usuarioRepository.save(novo);
-        });
+  // Referências por id (sem SELECT): os dados duplicados na solicitação vêm do que foi enviado
+  private void vincularSolicitante(Solicitacao solicitacao, SolicitacaoDto dto) {
+    Long id = cadastroPorCpfService.resolverSolicitante(dto);
+    solicitacao.setSolicitante(usuarioIpaRepository.getReferenceById(id));
+    solicitacao.setSolicitanteNome(dto.getSolicitanteNome());
+    solicitacao.setSolicitanteCpf(dto.getSolicitanteCpf().replaceAll("[^0-9]", ""));
+    solicitacao.setSolicitanteMatricula(dto.getSolicitanteMatricula());
+    solicitacao.setSolicitanteTelefone(dto.getSolicitanteTelefone());
+    solicitacao.setLocalAtuacao(dto.getLocalAtuacao());
+  }
+
+  private void vincularBeneficiario(Solicitacao solicitacao, SolicitacaoDto dto) {
+    Long id = cadastroPorCpfService.resolverBeneficiario(dto);
+    solicitacao.setBeneficiario(usuarioRepository.getReferenceById(id));
+    solicitacao.setBeneficiarioNome(dto.getBeneficiarioNome());
+    solicitacao.setBeneficiarioCpf(dto.getBeneficiarioCpf());
+    solicitacao.setBeneficiarioCep(dto.getBeneficiarioCep());
+    solicitacao.setBeneficiarioCaf(dto.getBeneficiarioCaf());
   }
 
   // ===== CONVERSÕES =====
 
+  private Pagina<SolicitacaoDto> pagina(List<SolicitacaoDto> linhas, int tamanho) {
+    return Pagina.de(linhas, tamanho, s -> new Cursor(s.getDataCriacao(), s.getId()), Function.identity());
+  }
+
   private SolicitacaoDto convertToDTO(Solicitacao solicitacao) {
     SolicitacaoDto dto = new SolicitacaoDto();
 
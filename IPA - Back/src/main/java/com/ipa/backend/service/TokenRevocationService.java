@@ -0,0 +1,102 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.cache.BloomFilter;
+import com.ipa.backend.config.JwtPrincipal;
+import com.ipa.backend.model.TokenRevogado;
+import com.ipa.backend.repository.TokenRevogadoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de access tokens (jti) revogados antes de expirar.
+ * A checagem do filtro JWT é só em memória: Bloom filter na frente de um conjunto exato.
+ * O banco é usado apenas para persistir e, em segundo plano, sincronizar entre instâncias.
+ */
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    private TokenRevogadoRepository tokenRevogadoRepository;
+
+    @Value("${jwt.revocation.bloom-capacity:100000}")
+    private int bloomCapacity;
+
+    // jti -> expiração (epoch ms)
+    private volatile Map<String, Long> revogados = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+
+    // Serializa adicionar com a troca das estruturas em atualizar; a leitura (isRevogado) não usa
+    private final Object trava = new Object();
+
+    public boolean isRevogado(JwtPrincipal principal) {
+        String jti = principal.tokenId();
+        if (jti == null) {
+            return false;
+        }
+        BloomFilter atual = bloom;
+        if (atual != null && !atual.mightContain(jti)) {
+            return false;
+        }
+        return revogados.containsKey(jti);
+    }
+
+    @Transactional
+    public void revogar(JwtPrincipal principal) {
+        if (principal.tokenId() == null || principal.expiration() == null) {
+            return;
+        }
+        LocalDateTime expiraEm = LocalDateTime.ofInstant(principal.expiration().toInstant(), ZoneId.systemDefault());
+        tokenRevogadoRepository.save(new TokenRevogado(principal.tokenId(), expiraEm));
+        adicionar(principal.tokenId(), principal.expiration().getTime());
+    }
+
+    /**
+     * Recarrega do banco (revogações feitas em outras instâncias), descarta as expiradas
+     * e reconstrói o Bloom filter, que não suporta remoção.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}")
+    @Transactional
+    public void atualizar() {
+        LocalDateTime agora = LocalDateTime.now();
+        long agoraMs = System.currentTimeMillis();
+
+        Map<String, Long> novos = new ConcurrentHashMap<>();
+        for (TokenRevogado t : tokenRevogadoRepository.findByExpiraEmAfter(agora)) {
+            novos.put(t.getJti(), t.getExpiraEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        synchronized (trava) {
+            // Revogações locais ainda não lidas do banco: com a trava, nenhuma entra nas estruturas
+            // antigas entre esta cópia e a troca
+            revogados.forEach((jti, exp) -> {
+                if (exp > agoraMs) {
+                    novos.putIfAbsent(jti, exp);
+                }
+            });
+
+            BloomFilter novoBloom = new BloomFilter(Math.max(bloomCapacity, novos.size() * 2), 0.01);
+            novos.keySet().forEach(novoBloom::add);
+
+            revogados = novos;
+            bloom = novoBloom;
+        }
+
+        tokenRevogadoRepository.deletarExpirados(agora);
+    }
+
+    private void adicionar(String jti, long expiraEm) {
+        synchronized (trava) {
+            revogados.put(jti, expiraEm);
+            if (bloom != null) {
+                bloom.add(jti);
+            }
+        }
+    }
+}
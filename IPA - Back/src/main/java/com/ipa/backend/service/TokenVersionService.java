@@ -0,0 +1,64 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.repository.UsuarioIpaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela em memória de id do usuário → versão atual dos tokens.
+ * Usada pelo modo de autenticação sem estado para revogar tokens sem consultar o banco a cada requisição.
+ */
+@Service
+public class TokenVersionService {
+
+    @Autowired
+    private UsuarioIpaRepository usuarioIpaRepository;
+
+    // Versão usada para usuários inexistentes: nenhum token é aceito
+    private static final int USUARIO_INEXISTENTE = -1;
+
+    private final Map<Long, Integer> versoes = new ConcurrentHashMap<>();
+
+    /**
+     * Recarrega a tabela a partir do banco em segundo plano.
+     */
+    @Scheduled(fixedDelayString = "${jwt.stateless.refresh-ms:30000}")
+    public void atualizar() {
+        Map<Long, Integer> atuais = new HashMap<>();
+        for (Object[] linha : usuarioIpaRepository.findAllTokenVersions()) {
+            atuais.put((Long) linha[0], linha[1] != null ? (Integer) linha[1] : 0);
+        }
+        versoes.keySet().retainAll(atuais.keySet());
+        // A versão só cresce: uma leitura anterior a revogarTokens não pode desfazer a revogação
+        atuais.forEach((id, versao) -> versoes.merge(id, versao, Math::max));
+    }
+
+    public int versaoAtual(Long usuarioId) {
+        Integer versao = versoes.get(usuarioId);
+        if (versao == null) {
+            // Usuário criado depois do último refresh: carrega uma única vez
+            versao = usuarioIpaRepository.findTokenVersionById(usuarioId).orElse(USUARIO_INEXISTENTE);
+            versoes.put(usuarioId, versao);
+        }
+        return versao;
+    }
+
+    public boolean isValida(Long usuarioId, Integer versaoToken) {
+        return versaoToken != null && versaoToken == versaoAtual(usuarioId);
+    }
+
+    /**
+     * Revoga todos os tokens já emitidos para o usuário.
+     */
+    @Transactional
+    public void revogarTokens(Long usuarioId) {
+        usuarioIpaRepository.incrementTokenVersion(usuarioId);
+        versoes.merge(usuarioId, usuarioIpaRepository.findTokenVersionById(usuarioId).orElse(USUARIO_INEXISTENTE), Math::max);
+    }
+}
@@ -1,7 +1,10 @@
 package com.ipa.backend.service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,12 +14,21 @@ import com.ipa.backend.dto.UsuarioDTO;
 import com.ipa.backend.model.Usuario;
 import com.ipa.backend.repository.UsuarioRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 @Service
 public class UsuarioService {
 
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private RastreamentoService rastreamentoService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public UsuarioDTO buscarPorCpf(String cpf) {
         Usuario usuario = usuarioRepository.findByCpf(cpf)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -30,6 +42,20 @@ public class UsuarioService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Percorre os usuários pelo cursor do banco e entrega cada um já convertido em UsuarioDTO,
+     * desanexando a entidade em seguida.
+     */
+    @Transactional(readOnly = true)
+    public void percorrerTodos(Consumer<UsuarioDTO> consumidor) {
+        try (Stream<Usuario> usuarios = usuarioRepository.streamTodos()) {
+            usuarios.forEach(usuario -> {
+                consumidor.accept(convertToDTO(usuario));
+                entityManager.detach(usuario);
+            });
+        }
+    }
+
     public UsuarioDTO buscarPorId(Long id) {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -57,6 +83,10 @@ public class UsuarioService {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
+        // O nome do usuário aparece no rastreio dos pedidos dele
+        if (!Objects.equals(usuario.getNome(), usuarioDTO.getNome())) {
+            rastreamentoService.invalidarPedidos();
+        }
         usuario.setNome(usuarioDTO.getNome());
         usuario.setEmail(usuarioDTO.getEmail());
         usuario.setEstado(usuarioDTO.getEstado());
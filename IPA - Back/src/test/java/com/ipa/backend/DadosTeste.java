@@ -0,0 +1,145 @@
+package com.ipa.backend;
+
+import com.ipa.backend.model.Pedido;
+import com.ipa.backend.model.Produto;
+import com.ipa.backend.model.Semente;
+import com.ipa.backend.model.Solicitacao;
+import com.ipa.backend.model.Usuario;
+import com.ipa.backend.model.UsuarioIpa;
+import com.ipa.backend.repository.PedidoRepository;
+import com.ipa.backend.repository.ProdutoRepository;
+import com.ipa.backend.repository.SementeRepository;
+import com.ipa.backend.repository.SolicitacaoRepository;
+import com.ipa.backend.repository.UsuarioIpaRepository;
+import com.ipa.backend.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Massa de dados dos testes de integração, gravada pelos repositórios.
+ * Cada pedido e solicitação aponta para um usuário e um produto diferentes dos vizinhos,
+ * para que um N+1 nas listagens apareça como um SELECT a mais por linha.
+ */
+@Component
+public class DadosTeste {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UsuarioIpaRepository usuarioIpaRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private SementeRepository sementeRepository;
+
+    @Autowired
+    private SolicitacaoRepository solicitacaoRepository;
+
+    public Usuario usuario(int n) {
+        Usuario usuario = new Usuario();
+        usuario.setNome("Agricultor " + n);
+        usuario.setCpf(String.format("%011d", 10_000_000L + n));
+        return usuarioRepository.save(usuario);
+    }
+
+    public UsuarioIpa usuarioIpa(int n) {
+        return usuarioIpa(n, "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BfX8/P7F1sH1b1C6d5U1T1iQ5pGe");
+    }
+
+    public UsuarioIpa usuarioIpa(int n, String senhaHash) {
+        UsuarioIpa usuario = new UsuarioIpa();
+        usuario.setNome("Agente " + n);
+        usuario.setCpf(String.format("%011d", 20_000_000L + n));
+        usuario.setSenha(senhaHash);
+        return usuarioIpaRepository.save(usuario);
+    }
+
+    public Produto produto(int n, int estoque) {
+        Produto produto = new Produto();
+        produto.setNome("Produto " + n);
+        produto.setCategoria("Sementes");
+        produto.setPreco(new BigDecimal("10.00"));
+        produto.setEstoque(estoque);
+        produto.setUnidadeMedida("KG");
+        return produtoRepository.save(produto);
+    }
+
+    public Semente semente(int n, String cultura, int estoque) {
+        Semente semente = new Semente();
+        semente.setNome("Semente " + n);
+        semente.setTipo("SEMENTE");
+        semente.setCultura(cultura);
+        semente.setEstoqueDisponivel(estoque);
+        semente.setUnidadeMedida("KG");
+        return sementeRepository.save(semente);
+    }
+
+    public Pedido pedido(int n, Usuario usuario, Produto produto, LocalDateTime data) {
+        Pedido pedido = new Pedido();
+        pedido.setNumeroRastreio(String.format("SAFRA-TESTE-%05d", n));
+        pedido.setUsuario(usuario);
+        pedido.setProduto(produto);
+        pedido.setQuantidade(1);
+        pedido.setValorTotal(new BigDecimal("10.00"));
+        pedido.setStatus("PENDENTE");
+        pedido.setDataPedido(data);
+        return pedidoRepository.save(pedido);
+    }
+
+    public record Massa(Long pedidoId, Long usuarioId) {
+    }
+
+    /**
+     * Pedidos, sementes e solicitações suficientes para mais de uma página de qualquer listagem.
+     * Retorna os ids do primeiro pedido e do seu usuário, para as consultas pontuais.
+     */
+    public Massa popular(int linhas) {
+        List<Usuario> usuarios = new ArrayList<>();
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < linhas; i++) {
+            usuarios.add(usuario(i));
+            produtos.add(produto(i, 1_000));
+        }
+        UsuarioIpa agente = usuarioIpa(1);
+
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        Long primeiroPedido = null;
+        for (int i = 0; i < linhas; i++) {
+            Pedido pedido = pedido(i, usuarios.get(i), produtos.get(i), base.plusSeconds(i));
+            if (primeiroPedido == null) {
+                primeiroPedido = pedido.getId();
+            }
+
+            semente(i, "Milho", 1_000);
+
+            Solicitacao solicitacao = new Solicitacao();
+            solicitacao.setSolicitante(agente);
+            solicitacao.setBeneficiario(usuarios.get(i));
+            solicitacao.setSolicitanteNome(agente.getNome());
+            solicitacao.setSolicitanteCpf(agente.getCpf());
+            solicitacao.setBeneficiarioNome(usuarios.get(i).getNome());
+            solicitacao.setBeneficiarioCpf(usuarios.get(i).getCpf());
+            solicitacao.setTipoInsumo("SEMENTE");
+            solicitacao.setCultura("Milho");
+            solicitacao.setQuantidade(1);
+            solicitacao.setUnidadeMedida("KG");
+            solicitacao.setFinalidade("Plantio");
+            solicitacao.setFormaEntrega("RETIRADA");
+            solicitacao.setStatus("EM_ANALISE");
+            solicitacao.setCodigoRastreio(String.format("SOL-TESTE-%05d", i));
+            solicitacaoRepository.save(solicitacao);
+        }
+        return new Massa(primeiroPedido, usuarios.get(0).getId());
+    }
+}
@@ -0,0 +1,94 @@
+package com.ipa.backend.benchmark;
+
+import com.ipa.backend.model.Produto;
+import com.ipa.backend.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserção em massa de produtos, em transações de LOTE linhas (user-019). Relata linhas por
+ * segundo e quantos comandos JDBC foram preparados; as subclasses só mudam o batch_size.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+abstract class InsercaoEmLote {
+
+    private static final Logger log = LoggerFactory.getLogger(InsercaoEmLote.class);
+
+    private static final int AQUECIMENTO = 2_000;
+    private static final int LINHAS = 20_000;
+    private static final int LOTE = 500;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void inserir() {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        inserir(transacao, 0, AQUECIMENTO);
+        estatisticas.clear();
+        long antes = produtoRepository.count();
+
+        long inicio = System.nanoTime();
+        inserir(transacao, AQUECIMENTO, LINHAS);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        assertThat(produtoRepository.count() - antes).isEqualTo(LINHAS);
+        log.info("[{}] {} linhas em {} s: {} linhas/s, {} comandos preparados", getClass().getSimpleName(), LINHAS,
+                String.format("%.2f", segundos), String.format("%.0f", LINHAS / segundos),
+                estatisticas.getPrepareStatementCount());
+    }
+
+    private void inserir(TransactionTemplate transacao, int primeiro, int quantidade) {
+        for (int lote = 0; lote < quantidade; lote += LOTE) {
+            int base = primeiro + lote;
+            transacao.executeWithoutResult(status -> {
+                List<Produto> produtos = new ArrayList<>(LOTE);
+                for (int i = 0; i < LOTE; i++) {
+                    Produto produto = new Produto();
+                    produto.setNome("Produto em lote " + (base + i));
+                    produto.setCategoria("Sementes");
+                    produto.setPreco(new BigDecimal("10.00"));
+                    produto.setEstoque(100);
+                    produto.setUnidadeMedida("KG");
+                    produtos.add(produto);
+                }
+                produtoRepository.saveAll(produtos);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+}
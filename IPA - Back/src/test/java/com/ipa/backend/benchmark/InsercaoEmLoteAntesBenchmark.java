@@ -0,0 +1,10 @@
+package com.ipa.backend.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Antes: sem lotes JDBC, um INSERT por ida ao banco (o que o GenerationType.IDENTITY impunha).
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=0")
+class InsercaoEmLoteAntesBenchmark extends InsercaoEmLote {
+}
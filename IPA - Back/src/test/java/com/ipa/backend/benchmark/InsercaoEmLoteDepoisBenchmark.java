@@ -0,0 +1,7 @@
+package com.ipa.backend.benchmark;
+
+/**
+ * Depois: ids reservados em bloco e INSERTs em lotes de batch_size (configuração padrão).
+ */
+class InsercaoEmLoteDepoisBenchmark extends InsercaoEmLote {
+}
@@ -0,0 +1,101 @@
+package com.ipa.backend.benchmark;
+
+import com.ipa.backend.config.JwtPrincipal;
+import com.ipa.backend.config.JwtTokenCache;
+import com.ipa.backend.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da autenticação JWT por requisição (user-001).
+ * antes: o caminho original do filtro, três parses com chave e parser recriados a cada um
+ * (extractCpf + validateToken, que extraía CPF e expiração de novo);
+ * depois: JwtUtil.verify, uma verificação com chave e parser criados na subida;
+ * depoisComCache: acerto no JwtTokenCache, o caso comum de um token reapresentado.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(0)
+public class JwtVerificacaoBenchmark {
+
+    private static final String SEGREDO = "segredo-do-benchmark-com-pelo-menos-256-bits-para-o-hmac-sha256";
+
+    private JwtUtil jwtUtil;
+    private JwtTokenCache tokenCache;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SEGREDO);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        token = jwtUtil.generateToken("00020000001");
+
+        tokenCache = new JwtTokenCache();
+        ReflectionTestUtils.setField(tokenCache, "enabled", true);
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 1000);
+        ReflectionTestUtils.setField(tokenCache, "ttlMs", 300_000L);
+        ReflectionTestUtils.setField(tokenCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(tokenCache, "init");
+        tokenCache.put(token, jwtUtil.verify(token));
+    }
+
+    @Benchmark
+    public boolean antes() {
+        String cpf = claimsSemCache(token).getSubject();
+        Claims novamente = claimsSemCache(token);
+        Date expiracao = claimsSemCache(token).getExpiration();
+        return novamente.getSubject().equals(cpf) && !expiracao.before(new Date());
+    }
+
+    @Benchmark
+    public JwtPrincipal depois() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal depoisComCache() {
+        return tokenCache.get(token);
+    }
+
+    private static Claims claimsSemCache(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SEGREDO.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Test
+    void medir() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificacaoBenchmark.class.getName() + ".")
+                .build()).run();
+    }
+}
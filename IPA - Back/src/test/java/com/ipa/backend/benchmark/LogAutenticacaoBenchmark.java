@@ -0,0 +1,152 @@
+package com.ipa.backend.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do log de uma autenticação com várias threads disputando a saída (user-008).
+ * antes: os println síncronos do AuthService original (senha incluída) e um logger em DEBUG
+ * com appender síncrono; depois: as mesmas chamadas como no código atual, debug parametrizado
+ * (descartado sem formatar no nível INFO) e um info pelo AsyncAppender com neverBlock;
+ * depoisTudoEmitido: todas as chamadas em INFO pelo AsyncAppender, para isolar o efeito do appender.
+ * A saída vai para arquivos temporários no lugar do console.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(0)
+public class LogAutenticacaoBenchmark {
+
+    private static final String CPF = "123.456.789-01";
+    private static final String CPF_LIMPO = "12345678901";
+    private static final String SENHA = "senha-do-agente";
+
+    private Path diretorio;
+    private PrintStream console;
+    private LoggerContext contexto;
+    private Logger sincrono;
+    private Logger assincrono;
+    private Logger assincronoInfo;
+
+    @Setup
+    public void preparar() throws IOException {
+        diretorio = Files.createTempDirectory("log-benchmark");
+        console = new PrintStream(new FileOutputStream(diretorio.resolve("console.log").toFile()), true,
+                StandardCharsets.UTF_8);
+
+        contexto = new LoggerContext();
+        contexto.start();
+        sincrono = logger("antes", Level.DEBUG, arquivo("antes.log"));
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(contexto);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(arquivo("depois.log"));
+        async.start();
+        assincrono = logger("depois", Level.INFO, async);
+        assincronoInfo = logger("depois.info", Level.INFO, async);
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        contexto.stop();
+        console.close();
+        try (var arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+
+    @Benchmark
+    public void antes() {
+        console.println("=================================");
+        console.println("🔐 AUTENTICAÇÃO");
+        console.println("📥 CPF recebido: [" + CPF + "]");
+        console.println("🧹 CPF limpo: [" + CPF_LIMPO + "]");
+        console.println("🔑 Senha recebida: [" + SENHA + "]");
+        console.println("=================================");
+        sincrono.debug("Usuário autenticado: " + CPF_LIMPO);
+    }
+
+    @Benchmark
+    public void depois() {
+        assincrono.debug("Autenticando CPF {}", CPF_LIMPO);
+        assincrono.debug("Login aceito para o CPF {}", CPF_LIMPO);
+        assincrono.info("Login do usuário {}", 42L);
+    }
+
+    @Benchmark
+    public void depoisTudoEmitido() {
+        assincronoInfo.info("Autenticando CPF {}", CPF_LIMPO);
+        assincronoInfo.info("Login aceito para o CPF {}", CPF_LIMPO);
+        assincronoInfo.info("Login do usuário {}", 42L);
+    }
+
+    private FileAppender<ILoggingEvent> arquivo(String nome) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(contexto);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> arquivo = new FileAppender<>();
+        arquivo.setContext(contexto);
+        arquivo.setFile(diretorio.resolve(nome).toString());
+        arquivo.setEncoder(encoder);
+        arquivo.start();
+        return arquivo;
+    }
+
+    private Logger logger(String nome, Level nivel, Appender<ILoggingEvent> appender) {
+        Logger logger = contexto.getLogger(nome);
+        logger.setLevel(nivel);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    @Test
+    void medir() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LogAutenticacaoBenchmark.class.getName() + ".")
+                .build()).run();
+    }
+}
@@ -0,0 +1,174 @@
+package com.ipa.backend.benchmark;
+
+import com.ipa.backend.DadosTeste;
+import com.ipa.backend.config.JwtUtil;
+import com.ipa.backend.model.UsuarioIpa;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tempestade de logins no início do turno (user-005), por HTTP contra o Tomcat real: LOGINS
+ * agentes entram ao mesmo tempo enquanto CONSULTAS threads rastreiam um pedido sem parar.
+ * Relata p50/p99 do login (e quantos receberam 503) e das consultas durante a tempestade.
+ * As subclasses só mudam a configuração do pool do BCrypt.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        // A tempestade vem toda do mesmo IP e repete CPFs: sem o limite de tentativas no caminho
+        "auth.throttle.cpf.capacity=1000000",
+        "auth.throttle.cpf.per-minute=1000000",
+        "auth.throttle.ip.capacity=1000000",
+        "auth.throttle.ip.per-minute=1000000"
+})
+abstract class LoginTempestade {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginTempestade.class);
+
+    private static final int AGENTES = 50;
+    private static final int LOGINS = 100;
+    private static final int LOGINS_POR_THREAD = 2;
+    private static final int CONSULTAS = 4;
+    private static final String SENHA = "senha-da-tempestade";
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void tempestade() throws Exception {
+        String hash = passwordEncoder.encode(SENHA);
+        List<String> cpfs = new ArrayList<>();
+        UsuarioIpa agente = null;
+        for (int i = 0; i < AGENTES; i++) {
+            agente = dados.usuarioIpa(500 + i, hash);
+            cpfs.add(agente.getCpf());
+        }
+        String token = jwtUtil.generateToken(agente);
+        String codigo = dados.pedido(500, dados.usuario(500), dados.produto(500, 10), LocalDateTime.now())
+                .getNumeroRastreio();
+
+        Queue<Long> loginMs = new ConcurrentLinkedQueue<>();
+        Queue<Long> consultaMs = new ConcurrentLinkedQueue<>();
+        Map<Integer, AtomicInteger> statusLogin = new ConcurrentHashMap<>();
+        Map<Integer, AtomicInteger> statusConsulta = new ConcurrentHashMap<>();
+        AtomicBoolean emTempestade = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService consultas = Executors.newFixedThreadPool(CONSULTAS);
+        List<Future<?>> consultando = new ArrayList<>();
+        for (int i = 0; i < CONSULTAS; i++) {
+            consultando.add(consultas.submit(() -> {
+                largada.await();
+                while (emTempestade.get()) {
+                    HttpRequest rastreio = HttpRequest.newBuilder(uri("/api/pedidos/rastrear/" + codigo))
+                            .header("Authorization", "Bearer " + token).GET().build();
+                    medir(rastreio, consultaMs, statusConsulta);
+                }
+                return null;
+            }));
+        }
+
+        ExecutorService logins = Executors.newFixedThreadPool(LOGINS / LOGINS_POR_THREAD);
+        List<Future<?>> logando = new ArrayList<>();
+        for (int i = 0; i < LOGINS / LOGINS_POR_THREAD; i++) {
+            String cpf = cpfs.get(i % AGENTES);
+            logando.add(logins.submit(() -> {
+                largada.await();
+                for (int j = 0; j < LOGINS_POR_THREAD; j++) {
+                    HttpRequest login = HttpRequest.newBuilder(uri("/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"cpf\":\"" + cpf + "\",\"senha\":\"" + SENHA + "\"}"))
+                            .build();
+                    medir(login, loginMs, statusLogin);
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> f : logando) {
+            f.get(10, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        emTempestade.set(false);
+        for (Future<?> f : consultando) {
+            f.get(1, TimeUnit.MINUTES);
+        }
+        logins.shutdown();
+        consultas.shutdown();
+
+        log.info("[{}] {} logins em {} s, status {}: p50 {} ms, p99 {} ms", getClass().getSimpleName(), loginMs.size(),
+                String.format("%.1f", segundos), statusLogin, percentil(loginMs, 50), percentil(loginMs, 99));
+        log.info("[{}] {} consultas de rastreio durante a tempestade, status {}: p50 {} ms, p99 {} ms",
+                getClass().getSimpleName(), consultaMs.size(), statusConsulta,
+                percentil(consultaMs, 50), percentil(consultaMs, 99));
+
+        assertThat(statusLogin.keySet()).as("login só termina em 200 ou 503").isSubsetOf(200, 503);
+        assertThat(statusConsulta.keySet()).as("consultas não falham durante a tempestade").containsOnly(200);
+    }
+
+    private void medir(HttpRequest requisicao, Queue<Long> tempos, Map<Integer, AtomicInteger> status)
+            throws Exception {
+        long inicio = System.nanoTime();
+        HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+        tempos.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        status.computeIfAbsent(resposta.statusCode(), s -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private URI uri(String caminho) {
+        return URI.create("http://localhost:" + porta + caminho);
+    }
+
+    private static long percentil(Queue<Long> tempos, int p) {
+        List<Long> ordenados = new ArrayList<>(tempos);
+        if (ordenados.isEmpty()) {
+            return 0;
+        }
+        ordenados.sort(null);
+        int indice = (int) Math.ceil(p / 100.0 * ordenados.size()) - 1;
+        return ordenados.get(Math.max(indice, 0));
+    }
+}
@@ -0,0 +1,15 @@
+package com.ipa.backend.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Antes: BCrypt sem limite próprio, tantas verificações simultâneas quantas threads do Tomcat
+ * (o equivalente a rodar matches na thread da requisição).
+ */
+@TestPropertySource(properties = {
+        "auth.bcrypt.threads=200",
+        "auth.bcrypt.queue-capacity=10000",
+        "auth.bcrypt.timeout-ms=600000"
+})
+class LoginTempestadeAntesBenchmark extends LoginTempestade {
+}
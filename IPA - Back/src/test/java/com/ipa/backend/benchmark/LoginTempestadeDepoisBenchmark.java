@@ -0,0 +1,8 @@
+package com.ipa.backend.benchmark;
+
+/**
+ * Depois: pool do BCrypt com a configuração padrão (um thread por núcleo, fila limitada e 503
+ * imediato com a fila cheia).
+ */
+class LoginTempestadeDepoisBenchmark extends LoginTempestade {
+}
@@ -0,0 +1,123 @@
+package com.ipa.backend.benchmark;
+
+import com.ipa.backend.DadosTeste;
+import com.ipa.backend.model.Pedido;
+import com.ipa.backend.model.Solicitacao;
+import com.ipa.backend.service.PedidoService;
+import com.ipa.backend.service.SolicitacaoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uma página de listagem pelo caminho atual (projeção direto no DTO, transação somente leitura)
+ * contra o caminho anterior (entidades gerenciadas numa transação comum, convertidas uma a uma),
+ * com latência e bytes alocados por página na thread que atende (user-017).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaginaProjecaoBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PaginaProjecaoBenchmark.class);
+
+    private static final int LINHAS = 200;
+    private static final int TAMANHO = 50;
+    private static final int AQUECIMENTO = 300;
+    private static final int MEDICOES = 1_000;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private SolicitacaoService solicitacaoService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transacao;
+
+    @BeforeAll
+    void popular() {
+        dados.popular(LINHAS);
+        transacao = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void solicitacoes() {
+        comparar("solicitacoes",
+                () -> transacao.execute(status -> entityManager.createQuery(
+                                "SELECT s FROM Solicitacao s ORDER BY s.dataCriacao DESC, s.id DESC", Solicitacao.class)
+                        .setMaxResults(TAMANHO + 1)
+                        .getResultList().stream()
+                        .map(s -> ReflectionTestUtils.invokeMethod(solicitacaoService, "convertToDTO", s))
+                        .toList()),
+                () -> solicitacaoService.listarTodas(null, TAMANHO).itens());
+    }
+
+    @Test
+    void pedidos() {
+        comparar("pedidos",
+                () -> transacao.execute(status -> entityManager.createQuery(
+                                "SELECT p FROM Pedido p JOIN FETCH p.usuario JOIN FETCH p.produto "
+                                        + "ORDER BY p.dataPedido DESC, p.id DESC", Pedido.class)
+                        .setMaxResults(TAMANHO + 1)
+                        .getResultList().stream()
+                        .map(p -> ReflectionTestUtils.invokeMethod(pedidoService, "convertToDTO", p))
+                        .toList()),
+                () -> pedidoService.listarTodos(null, TAMANHO).itens());
+    }
+
+    private void comparar(String listagem, Supplier<List<?>> entidades, Supplier<List<?>> projecao) {
+        assertThat(entidades.get()).hasSize(TAMANHO + 1);
+        assertThat(projecao.get()).hasSize(TAMANHO);
+
+        Medida antes = medir(entidades);
+        Medida depois = medir(projecao);
+        log.info("[{}] página de {}: entidades {} us e {} KB por página; projeção {} us e {} KB por página",
+                listagem, TAMANHO, antes.micros(), antes.kb(), depois.micros(), depois.kb());
+    }
+
+    private static Medida medir(Supplier<List<?>> pagina) {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            pagina.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < MEDICOES; i++) {
+            pagina.get();
+        }
+        long nanos = System.nanoTime() - inicio;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+        return new Medida(nanos / 1_000 / MEDICOES, bytes / 1_024 / MEDICOES);
+    }
+
+    private record Medida(long micros, long kb) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.ipa.backend.cache;
+
+import com.ipa.backend.DadosTeste;
+import com.ipa.backend.model.UsuarioIpa;
+import com.ipa.backend.repository.UsuarioIpaRepository;
+import com.ipa.backend.service.CustomUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioIpaCacheListenerTest {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private UsuarioIpaRepository usuarioIpaRepository;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void trocaDeCpfInvalidaOCpfAnterior() {
+        UsuarioIpa agente = dados.usuarioIpa(700);
+        String cpfAntigo = agente.getCpf();
+        String cpfNovo = "99988877766";
+        assertThat(userDetailsService.loadUserByUsername(cpfAntigo).getUsername()).isEqualTo(cpfAntigo);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            UsuarioIpa carregado = usuarioIpaRepository.findById(agente.getId()).orElseThrow();
+            carregado.setCpf(cpfNovo);
+        });
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername(cpfAntigo))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(userDetailsService.loadUserByUsername(cpfNovo).getUsername()).isEqualTo(cpfNovo);
+    }
+}
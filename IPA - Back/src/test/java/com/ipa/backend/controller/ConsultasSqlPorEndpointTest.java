@@ -0,0 +1,103 @@
+package com.ipa.backend.controller;
+
+import com.ipa.backend.DadosTeste;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comandos SQL por endpoint, lidos da métrica http.server.requests.sql (ConsultasPorRequisicaoFilter).
+ * Cada listagem precisa de um número fixo de comandos, igual com 5 ou com 50 linhas por página:
+ * um N+1 novo faz a contagem crescer com a página e o teste falhar. Com sql.consultas.estrito=true
+ * (perfil test), uma requisição que passe do limite global já falha sozinha.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasSqlPorEndpointTest {
+
+    private static final int LINHAS = 60;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DadosTeste dados;
+
+    private DadosTeste.Massa massa;
+
+    @BeforeAll
+    void popular() {
+        massa = dados.popular(LINHAS);
+    }
+
+    @ParameterizedTest(name = "{0} -> {1} comando(s)")
+    @CsvSource({
+        "/api/pedidos,                              1",
+        "/api/pedidos/status/PENDENTE,              1",
+        "/api/solicitacoes,                         1",
+        "/api/solicitacoes/status/EM_ANALISE,       1",
+        "/api/solicitacoes/solicitante/00020000001, 1",
+    })
+    void listagemPorCursorNaoDependeDoTamanhoDaPagina(String caminho, int esperado) throws Exception {
+        assertThat(comandosSql(caminho + "?limite=5")).isEqualTo(esperado);
+        assertThat(comandosSql(caminho + "?limite=50")).isEqualTo(esperado);
+    }
+
+    @ParameterizedTest(name = "{0} -> {1} comando(s)")
+    @CsvSource({
+        "/api/sementes,               1",
+        "/api/sementes/ativas,        1",
+        "/api/sementes/cultura/Milho, 1",
+        "/api/usuarios,               1",
+        "/api/produtos?size=50,       2",
+    })
+    void listagemCompleta(String caminho, int esperado) throws Exception {
+        assertThat(comandosSql(caminho)).isEqualTo(esperado);
+    }
+
+    @ParameterizedTest(name = "{0} -> {1} comando(s)")
+    @CsvSource({
+        "/api/pedidos/{pedido},                   1",
+        "/api/pedidos/usuario/{usuario},          1",
+        "/api/pedidos/rastrear/SAFRA-TESTE-00007, 1",
+        "/api/solicitacoes/rastrear/SOL-TESTE-00007, 1",
+    })
+    void consultaPontual(String caminho, int esperado) throws Exception {
+        String concreto = caminho
+                .replace("{pedido}", massa.pedidoId().toString())
+                .replace("{usuario}", massa.usuarioId().toString());
+        assertThat(comandosSql(concreto)).isEqualTo(esperado);
+    }
+
+    // Diferença no total da métrica (todas as rotas) antes e depois de uma única requisição
+    private int comandosSql(String caminho) throws Exception {
+        double antes = totalRegistrado();
+        mockMvc.perform(get(caminho)).andExpect(status().isOk());
+        return (int) (totalRegistrado() - antes);
+    }
+
+    private double totalRegistrado() {
+        return meterRegistry.find("http.server.requests.sql").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ipa.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A mesma disputa com o motor de estoque ligado: o saldo vem das células em memória e só
+ * chega ao banco no flush, que também precisa terminar em zero.
+ */
+class PedidoConcorrenciaMotorTest extends PedidoConcorrenciaTest {
+
+    @Autowired
+    private MotorEstoqueService motorEstoqueService;
+
+    @DynamicPropertySource
+    static void motor(DynamicPropertyRegistry registro) throws IOException {
+        String diretorio = Files.createTempDirectory("estoque-ledger").toString();
+        registro.add("estoque.motor.enabled", () -> "true");
+        registro.add("estoque.motor.diretorio", () -> diretorio);
+        registro.add("estoque.motor.fsync", () -> "false");
+    }
+
+    @Override
+    protected int estoqueFinal(Long produtoId) {
+        int emMemoria = motorEstoqueService.disponivel(MotorEstoqueService.PRODUTO, produtoId);
+        motorEstoqueService.aplicarNoBanco();
+        assertThat(super.estoqueFinal(produtoId)).as("saldo gravado no banco").isEqualTo(emMemoria);
+        return emMemoria;
+    }
+}
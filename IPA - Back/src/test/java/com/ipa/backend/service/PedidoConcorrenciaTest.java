@@ -0,0 +1,113 @@
+package com.ipa.backend.service;
+
+import com.ipa.backend.DadosTeste;
+import com.ipa.backend.dto.PedidoDTO;
+import com.ipa.backend.model.Produto;
+import com.ipa.backend.model.Usuario;
+import com.ipa.backend.repository.PedidoRepository;
+import com.ipa.backend.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compradores simultâneos de um único produto: cada um repete pedidos de 1 unidade até receber
+ * "Estoque insuficiente". Nenhuma venda além do estoque, nenhum pedido perdido, e o relatório
+ * de pedidos por segundo sai no log.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoConcorrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PedidoConcorrenciaTest.class);
+
+    protected static final int COMPRADORES = 64;
+    protected static final int ESTOQUE = 2_000;
+
+    @Autowired
+    protected PedidoService pedidoService;
+
+    @Autowired
+    protected ProdutoRepository produtoRepository;
+
+    @Autowired
+    protected PedidoRepository pedidoRepository;
+
+    @Autowired
+    protected DadosTeste dados;
+
+    @Test
+    void naoVendeAlemDoEstoque() throws Exception {
+        Usuario comprador = dados.usuario(900);
+        Produto produto = dados.produto(900, ESTOQUE);
+
+        Queue<Throwable> erros = new ConcurrentLinkedQueue<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(COMPRADORES);
+        List<Future<Integer>> vendas = new ArrayList<>();
+        for (int i = 0; i < COMPRADORES; i++) {
+            vendas.add(pool.submit(() -> comprarAteEsgotar(comprador.getId(), produto.getId(), largada, erros)));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        int vendidos = 0;
+        for (Future<Integer> venda : vendas) {
+            vendidos += venda.get(5, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        log.info("{} compradores, {} pedidos em {} s: {} pedidos/s", COMPRADORES, vendidos,
+                String.format("%.2f", segundos), String.format("%.0f", vendidos / segundos));
+
+        assertThat(erros).as("falhas que não são falta de estoque").isEmpty();
+        assertThat(vendidos).isEqualTo(ESTOQUE);
+        assertThat(pedidoRepository.count()).isGreaterThanOrEqualTo(ESTOQUE);
+        assertThat(estoqueFinal(produto.getId())).isZero();
+    }
+
+    /**
+     * Saldo depois da disputa, como a aplicação o enxerga.
+     */
+    protected int estoqueFinal(Long produtoId) {
+        return produtoRepository.findById(produtoId).orElseThrow().getEstoque();
+    }
+
+    private int comprarAteEsgotar(Long usuarioId, Long produtoId, CountDownLatch largada, Queue<Throwable> erros)
+            throws InterruptedException {
+        PedidoDTO pedido = new PedidoDTO();
+        pedido.setUsuarioId(usuarioId);
+        pedido.setProdutoId(produtoId);
+        pedido.setQuantidade(1);
+
+        largada.await();
+        int vendidos = 0;
+        while (true) {
+            try {
+                pedidoService.criar(pedido);
+                vendidos++;
+            } catch (RuntimeException e) {
+                if (!"Estoque insuficiente".equals(e.getMessage())) {
+                    erros.add(e);
+                }
+                return vendidos;
+            }
+        }
+    }
+}
@@ -73,14 +73,30 @@ export function AuthProvider({ children }: AuthProviderProps) {
     // Salvar no localStorage
     localStorage.setItem("safra_token", userToken);
     localStorage.setItem("safra_user", JSON.stringify(normalizedUser));
+    if (data.refreshToken) {
+      localStorage.setItem("safra_refresh_token", data.refreshToken);
+    }
 
     console.log("✅ Login realizado com sucesso:", normalizedUser);
   };
 
   const logout = () => {
+    // Revogar tokens no backend (melhor esforço)
+    const storedToken = localStorage.getItem("safra_token");
+    const refreshToken = localStorage.getItem("safra_refresh_token");
+    fetch("http://localhost:8080/api/auth/logout", {
+      method: "POST",
+      headers: {
+        "Content-Type": "application/json",
+        ...(storedToken ? { Authorization: `Bearer ${storedToken}` } : {}),
+      },
+      body: JSON.stringify({ refreshToken }),
+    }).catch(() => {});
+
     setUser(null);
     setToken(null);
     localStorage.removeItem("safra_token");
+    localStorage.removeItem("safra_refresh_token");
     localStorage.removeItem("safra_user");
     console.log("👋 Usuário deslogado");
   };
@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import { useNavigate } from "react-router-dom";
 import { useAuth } from "@/contexts/AuthContext";
 import Header from "@/components/Header";
@@ -31,6 +31,10 @@ const MinhasSolicitacoes = () => {
   const [solicitacoes, setSolicitacoes] = useState<Solicitacao[]>([]);
   const [loading, setLoading] = useState(true);
   const [filtro, setFiltro] = useState("");
+  // Listagem por cursor: a próxima página só é buscada quando o fim da lista aparece na tela
+  const [proximoCursor, setProximoCursor] = useState<string | null>(null);
+  const [carregandoMais, setCarregandoMais] = useState(false);
+  const fimDaLista = useRef<HTMLDivElement>(null);
 
   useEffect(() => {
     carregarSolicitacoes();
@@ -45,10 +49,9 @@ const MinhasSolicitacoes = () => {
 
     try {
       setLoading(true);
-      console.log("🔍 Buscando solicitações do CPF:", user.cpf);
-      const dados = await buscarSolicitacoesPorSolicitante(user.cpf);
-      console.log("✅ Solicitações carregadas:", dados);
-      setSolicitacoes(dados);
+      const pagina = await buscarSolicitacoesPorSolicitante(user.cpf);
+      setSolicitacoes(pagina.itens);
+      setProximoCursor(pagina.proximoCursor);
     } catch (error: any) {
       console.error("❌ Erro ao carregar solicitações:", error);
       toast.error("Erro ao carregar suas solicitações");
@@ -57,6 +60,39 @@ const MinhasSolicitacoes = () => {
     }
   };
 
+  const carregarMais = async () => {
+    if (!user?.cpf || !proximoCursor || carregandoMais) {
+      return;
+    }
+
+    try {
+      setCarregandoMais(true);
+      const pagina = await buscarSolicitacoesPorSolicitante(user.cpf, proximoCursor);
+      setSolicitacoes((atuais) => [...atuais, ...pagina.itens]);
+      setProximoCursor(pagina.proximoCursor);
+    } catch (error: any) {
+      console.error("❌ Erro ao carregar mais solicitações:", error);
+      toast.error("Erro ao carregar mais solicitações");
+    } finally {
+      setCarregandoMais(false);
+    }
+  };
+
+  // Rolagem infinita: o marcador no fim da lista dispara a próxima página
+  useEffect(() => {
+    const marcador = fimDaLista.current;
+    if (!marcador || !proximoCursor) {
+      return;
+    }
+    const observador = new IntersectionObserver((entradas) => {
+      if (entradas[0].isIntersecting) {
+        carregarMais();
+      }
+    });
+    observador.observe(marcador);
+    return () => observador.disconnect();
+  }, [proximoCursor, carregandoMais, loading]);
+
   const solicitacoesFiltradas = solicitacoes.filter(
     (s) =>
       s.codigoRastreio?.toLowerCase().includes(filtro.toLowerCase()) ||
@@ -152,6 +188,7 @@ const MinhasSolicitacoes = () => {
                   <CardContent className="pt-6">
                     <div className="text-2xl font-bold text-primary">
                       {solicitacoes.length}
+                      {proximoCursor ? "+" : ""}
                     </div>
                     <div className="text-sm text-muted-foreground">Total</div>
                   </CardContent>
@@ -261,6 +298,19 @@ const MinhasSolicitacoes = () => {
                   </Card>
                 ))}
               </div>
+
+              {/* Próxima página: automática ao rolar até aqui, ou pelo botão */}
+              {proximoCursor && (
+                <div ref={fimDaLista} className="mt-6 flex justify-center">
+                  <Button variant="outline" onClick={carregarMais} disabled={carregandoMais}>
+                    {carregandoMais ? (
+                      <Loader2 className="h-4 w-4 animate-spin" />
+                    ) : (
+                      "Carregar mais"
+                    )}
+                  </Button>
+                </div>
+              )}
             </>
           )}
 
@@ -5,6 +5,7 @@ const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
 
 // ✅ Mesma chave usada no authService
 const TOKEN_KEY = 'safra_token';
+const REFRESH_TOKEN_KEY = 'safra_refresh_token';
 
 // Criar instância do Axios
 const api = axios.create({
@@ -34,18 +35,53 @@ api.interceptors.request.use(
   }
 );
 
+// Renovação em andamento (compartilhada entre requisições concorrentes)
+let refreshPromise: Promise<string> | null = null;
+
+const renovarToken = (): Promise<string> => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem(REFRESH_TOKEN_KEY);
+    refreshPromise = (refreshToken
+      ? axios.post(`${API_URL}/auth/refresh`, { refreshToken }).then((response) => {
+          localStorage.setItem(TOKEN_KEY, response.data.token);
+          localStorage.setItem(REFRESH_TOKEN_KEY, response.data.refreshToken);
+          return response.data.token as string;
+        })
+      : Promise.reject(new Error('Sem refresh token'))
+    ).finally(() => {
+      refreshPromise = null;
+    });
+  }
+  return refreshPromise;
+};
+
 // ✅ INTERCEPTOR de RESPOSTA: Trata erros de autenticação
 api.interceptors.response.use(
   (response) => {
     return response;
   },
-  (error) => {
+  async (error) => {
+    const originalRequest = error.config;
+
+    // Access token expirado: tenta renovar uma vez e repetir a requisição
+    if (error.response?.status === 401 && originalRequest && !originalRequest._retry) {
+      originalRequest._retry = true;
+      try {
+        const token = await renovarToken();
+        originalRequest.headers.Authorization = `Bearer ${token}`;
+        return api(originalRequest);
+      } catch {
+        // Refresh inválido: segue para o logout abaixo
+      }
+    }
+
     // Se receber 401 (Unauthorized) ou 403 (Forbidden)
     if (error.response?.status === 401 || error.response?.status === 403) {
       console.error('🚫 Acesso negado. Token inválido ou expirado.');
       
       // Limpar localStorage e redirecionar para login
       localStorage.removeItem(TOKEN_KEY);
+      localStorage.removeItem(REFRESH_TOKEN_KEY);
       localStorage.removeItem('safra_user');
       
       // Redirecionar para login
@@ -56,4 +92,22 @@ api.interceptors.response.use(
   }
 );
 
-export default api;
\ No newline at end of file
+export interface Pagina<T> {
+  itens: T[];
+  // Nulo na última página
+  proximoCursor: string | null;
+}
+
+/**
+ * Busca uma página de uma listagem por cursor; o cursor da próxima vem no header X-Next-Cursor.
+ * A tela pede a página seguinte só quando o usuário chega ao fim da lista.
+ */
+export const buscarPagina = async <T>(url: string, cursor?: string | null, limite = 50): Promise<Pagina<T>> => {
+  const response = await api.get<T[]>(url, { params: { cursor: cursor ?? undefined, limite } });
+  return {
+    itens: response.data,
+    proximoCursor: response.headers['x-next-cursor'] ?? null,
+  };
+};
+
+export default api;
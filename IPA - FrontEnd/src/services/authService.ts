@@ -5,6 +5,7 @@ const API_URL = import.meta.env.VITE_API_URL || "http://localhost:8080/api";
 // ✅ Usar as MESMAS chaves do AuthContext
 const TOKEN_KEY = "safra_token";
 const USER_KEY = "safra_user";
+const REFRESH_TOKEN_KEY = "safra_refresh_token";
 
 export interface LoginData {
   cpf: string;
@@ -25,6 +26,7 @@ export interface RegisterData {
 
 export interface AuthResponse {
   token: string;
+  refreshToken?: string;
   usuario: {
     id: number;
     nome: string;
@@ -47,6 +49,9 @@ const authService = {
       // ✅ Usar as mesmas chaves do AuthContext
       localStorage.setItem(TOKEN_KEY, response.data.token);
       localStorage.setItem(USER_KEY, JSON.stringify(response.data.usuario));
+      if (response.data.refreshToken) {
+        localStorage.setItem(REFRESH_TOKEN_KEY, response.data.refreshToken);
+      }
       
       console.log("✅ Dados salvos no localStorage:", {
         token: response.data.token,
@@ -75,6 +80,7 @@ const authService = {
   logout: () => {
     // ✅ Limpar as mesmas chaves do AuthContext
     localStorage.removeItem(TOKEN_KEY);
+    localStorage.removeItem(REFRESH_TOKEN_KEY);
     localStorage.removeItem(USER_KEY);
     console.log("👋 Logout realizado, localStorage limpo");
   },
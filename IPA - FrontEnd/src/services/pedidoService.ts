@@ -52,6 +52,11 @@ export interface ApiResponse<T> {
   status: number;
 }
 
+export interface PaginaResponse<T> extends ApiResponse<T[]> {
+  // Cursor da próxima página (header X-Next-Cursor); nulo na última
+  proximoCursor: string | null;
+}
+
 const API_BASE_URL = "http://localhost:8080/api";
 
 class PedidoService {
@@ -157,24 +162,30 @@ class PedidoService {
   }
 
   /**
-   * Lista todos os pedidos (requer autenticação)
+   * Lista os pedidos uma página por vez (requer autenticação)
+   * @param cursor - Cursor da página (vazio na primeira)
+   * @param limite - Itens por página
    */
-  async listarTodos(): Promise<ApiResponse<Pedido[]>> {
+  async listarTodos(cursor?: string | null, limite: number = 50): Promise<PaginaResponse<Pedido>> {
     try {
-      const response = await fetch(`${API_BASE_URL}/solicitacoes`, {
+      const params = new URLSearchParams({ limite: String(limite) });
+      if (cursor) {
+        params.set("cursor", cursor);
+      }
+      const response = await fetch(`${API_BASE_URL}/solicitacoes?${params}`, {
         method: "GET",
         headers: this.getHeaders(true), // Com autenticação
       });
 
-      if (response.ok || response.status === 201) {
-        const data = await response.json();
-        return {
-          data: data,
-          status: response.status,
-        };
+      if (!response.ok) {
+        throw new Error(`Erro ao listar pedidos: ${response.statusText}`);
       }
 
-      throw new Error(`Erro ao listar pedidos: ${response.statusText}`);
+      return {
+        data: await response.json(),
+        status: response.status,
+        proximoCursor: response.headers.get("X-Next-Cursor"),
+      };
     } catch (error) {
       console.error("Erro ao listar pedidos:", error);
       throw error;
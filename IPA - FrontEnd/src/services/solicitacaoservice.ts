@@ -1,5 +1,5 @@
 // src/services/solicitacaoService.ts
-import api from './api';
+import api, { buscarPagina, type Pagina } from './api';
 
 // ===== INTERFACES =====
 
@@ -67,13 +67,13 @@ export const rastrearSolicitacao = async (
 };
 
 /**
- * 📋 Listar todas as solicitações
- * @returns Lista de todas as solicitações
+ * 📋 Listar solicitações, uma página por vez
+ * @param cursor - Cursor da página (vazio na primeira)
+ * @returns Página de solicitações e o cursor da seguinte
  */
-export const listarSolicitacoes = async () => {
+export const listarSolicitacoes = async (cursor?: string | null): Promise<Pagina<any>> => {
   try {
-    const response = await api.get('/solicitacoes');
-    return response.data;
+    return await buscarPagina('/solicitacoes', cursor);
   } catch (error: any) {
     throw new Error(
       error.response?.data?.message || 
@@ -164,14 +164,14 @@ export const deletarSolicitacao = async (id: number) => {
 };
 
 /**
- * 📊 Buscar solicitações por status
+ * 📊 Buscar solicitações por status, uma página por vez
  * @param status - Status das solicitações
- * @returns Lista filtrada
+ * @param cursor - Cursor da página (vazio na primeira)
+ * @returns Página filtrada e o cursor da seguinte
  */
-export const buscarSolicitacoesPorStatus = async (status: string) => {
+export const buscarSolicitacoesPorStatus = async (status: string, cursor?: string | null): Promise<Pagina<any>> => {
   try {
-    const response = await api.get(`/solicitacoes/status/${status}`);
-    return response.data;
+    return await buscarPagina(`/solicitacoes/status/${status}`, cursor);
   } catch (error: any) {
     throw new Error(
       error.response?.data?.message || 
@@ -181,14 +181,14 @@ export const buscarSolicitacoesPorStatus = async (status: string) => {
 };
 
 /**
- * 👤 Buscar solicitações por CPF do solicitante
+ * 👤 Buscar solicitações por CPF do solicitante, uma página por vez
  * @param cpf - CPF do solicitante
- * @returns Lista de solicitações
+ * @param cursor - Cursor da página (vazio na primeira)
+ * @returns Página de solicitações e o cursor da seguinte
  */
-export const buscarSolicitacoesPorSolicitante = async (cpf: string) => {
+export const buscarSolicitacoesPorSolicitante = async (cpf: string, cursor?: string | null): Promise<Pagina<any>> => {
   try {
-    const response = await api.get(`/solicitacoes/solicitante/${cpf}`);
-    return response.data;
+    return await buscarPagina(`/solicitacoes/solicitante/${cpf}`, cursor);
   } catch (error: any) {
     throw new Error(
       error.response?.data?.message || 